@@ -0,0 +1,43 @@
+package org.cccrunching.data.json;
+
+import com.google.gson.Gson;
+import org.apache.commons.io.output.NullWriter;
+import org.cccrunching.data.Meeting;
+import org.cccrunching.parser.lalouviere.LaLouvMeetingParser;
+import org.cccrunching.parser.lalouviere.MinutesFixtures;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gson serialization of a parsed meeting, to a string and streamed to a writer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MeetingJsonBenchmark {
+
+    @Param({"1", "50"})
+    public int copies;
+
+    private final Gson gson = MeetingJson.gson();
+    private Meeting meeting;
+
+    @Setup
+    public void setUp(){
+        meeting = new LaLouvMeetingParser().parse(MinutesFixtures.synthetic(copies));
+    }
+
+    @Benchmark
+    public String toJson(){
+        return gson.toJson(meeting);
+    }
+
+    @Benchmark
+    public void toJsonWriter(){
+        gson.toJson(meeting, NullWriter.NULL_WRITER);
+    }
+}
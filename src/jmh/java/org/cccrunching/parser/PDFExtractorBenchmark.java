@@ -0,0 +1,70 @@
+package org.cccrunching.parser;
+
+import org.cccrunching.parser.lalouviere.MinutesFixtures;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Text extraction of PDF files generated from the minutes excerpt, without any text cache
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PDFExtractorBenchmark {
+
+    /**
+     * Number of pages of the generated PDF
+     */
+    @Param({"5", "200"})
+    public int pages;
+
+    /**
+     * Threads extracting page ranges, 1 for a serial extraction
+     */
+    @Param({"1", "4"})
+    public int pageThreads;
+
+    /**
+     * Parser settings, the Tika defaults or the text-only profile used for the ingestion
+     */
+    @Param({"tikaDefaults", "textOnly"})
+    public String profile;
+
+    /**
+     * Content of the generated PDF, the text alone or the text with a note, a form field, a bookmark and an image per page
+     */
+    @Param({"text", "rich"})
+    public String fixture;
+
+    private PDFExtractor extractor;
+    private File pdf;
+
+    @Setup
+    public void setUp() throws IOException {
+        ExtractionProfile extractionProfile = "textOnly".equals(profile) ? ExtractionProfile.textOnly() : ExtractionProfile.tikaDefaults();
+        extractor = new PDFExtractor(null, new PDFExtractor.PageParallelism().threads(pageThreads).minPages(2), extractionProfile);
+        pdf = File.createTempFile("minutes-" + pages, ".pdf");
+        if ("rich".equals(fixture)) {
+            TestPdfs.writeRichPdf(pdf, MinutesFixtures.excerpt().split("\n"), pages);
+        } else {
+            TestPdfs.writePdf(pdf, MinutesFixtures.excerpt().split("\n"), pages);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(pdf.toPath());
+    }
+
+    @Benchmark
+    public String pdfAsText(){
+        return extractor.pdfAsText(pdf);
+    }
+}
@@ -0,0 +1,76 @@
+package org.cccrunching.parser.lalouviere;
+
+import org.cccrunching.data.Meeting;
+import org.cccrunching.data.MeetingItem;
+import org.cccrunching.data.Person;
+import org.cccrunching.parser.LineContentHandler;
+import org.cccrunching.parser.StreamingMeetingParser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the minutes, on the checked-in excerpt ("1") and on synthetic minutes made of copies of it
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LaLouvMeetingParserBenchmark {
+
+    @Param({"1", "50"})
+    public int copies;
+
+    private final LaLouvMeetingParser parser = new LaLouvMeetingParser();
+    private String minutes;
+    private char[] minutesChars;
+    private String debate;
+    private String foreword;
+    private String[] lines;
+
+    @Setup
+    public void setUp(){
+        minutes = MinutesFixtures.synthetic(copies);
+        minutesChars = minutes.toCharArray();
+        List<String> split = parser.extractAgendaItems(minutes);
+        foreword = split.get(0);
+        debate = split.get(1);
+        lines = debate.split("\n");
+    }
+
+    @Benchmark
+    public Meeting parse(){
+        return parser.parse(minutes);
+    }
+
+    @Benchmark
+    public Meeting streamingParse(){
+        StreamingMeetingParser.Session session = parser.open(null);
+        LineContentHandler handler = new LineContentHandler(session);
+        handler.characters(minutesChars, 0, minutesChars.length);
+        handler.endDocument();
+        return session.finish();
+    }
+
+    @Benchmark
+    public Map<String, MeetingItem> splitDebateItems(){
+        return parser.splitDebateItems(debate);
+    }
+
+    @Benchmark
+    public void tokenParse(Blackhole blackhole){
+        for (String line : lines) {
+            blackhole.consume(LaLouvMeetingParser.Token.parse(line));
+        }
+    }
+
+    @Benchmark
+    public List<Person> extractAttendees(){
+        return parser.extractAttendees(foreword);
+    }
+}
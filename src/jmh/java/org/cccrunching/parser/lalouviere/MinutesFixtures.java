@@ -0,0 +1,67 @@
+package org.cccrunching.parser.lalouviere;
+
+import org.apache.commons.io.IOUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Minutes used by the benchmarks: the checked-in excerpt, and synthetic minutes made of
+ * renumbered copies of its debate items.
+ */
+public final class MinutesFixtures {
+
+    private static final String OPENING = "La séance est ouverte à 19 heures 30";
+    private static final Pattern ITEM_NUMBER = Pattern.compile("(?m)^(\\s*)([0-9]+)\\.- ");
+
+    private MinutesFixtures(){
+    }
+
+    public static String excerpt(){
+        try (InputStream is = MinutesFixtures.class.getResourceAsStream("/lalouviere/minutes-excerpt.txt")) {
+            return IOUtils.toString(is, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return the part of the excerpt before the opening of the meeting, with the title and the attendees
+     */
+    public static String foreword(){
+        String excerpt = excerpt();
+        return excerpt.substring(0, excerpt.indexOf(OPENING));
+    }
+
+    /**
+     * @return the debate part of the excerpt, after the opening of the meeting
+     */
+    public static String debate(){
+        String excerpt = excerpt();
+        return excerpt.substring(excerpt.indexOf(OPENING) + OPENING.length());
+    }
+
+    /**
+     * @param copies number of copies of the debate items of the excerpt
+     * @return complete minutes whose items all have a distinct number
+     */
+    public static String synthetic(int copies){
+        String debate = debate();
+        StringBuilder minutes = new StringBuilder(foreword()).append(OPENING);
+        for (int copy = 0; copy < copies; copy++) {
+            Matcher matcher = ITEM_NUMBER.matcher(debate);
+            StringBuffer renumbered = new StringBuffer();
+            while (matcher.find()) {
+                int number = Integer.parseInt(matcher.group(2)) + copy * 1000;
+                matcher.appendReplacement(renumbered, matcher.group(1) + number + ".- ");
+            }
+            matcher.appendTail(renumbered);
+            minutes.append(renumbered);
+        }
+        return minutes.toString();
+    }
+}
@@ -0,0 +1,40 @@
+package org.cccrunching.search;
+
+import org.cccrunching.data.Meeting;
+import org.cccrunching.parser.lalouviere.LaLouvMeetingParser;
+import org.cccrunching.parser.lalouviere.MinutesFixtures;
+import org.elasticsearch.action.index.IndexRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building of the Elasticsearch documents, without any cluster: the bulk transport is never called
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ESIndexerBenchmark {
+
+    @Param({"1", "50"})
+    public int copies;
+
+    private ESIndexer indexer;
+    private Meeting meeting;
+
+    @Setup
+    public void setUp(){
+        indexer = new ESIndexer((request, listener) -> {
+            throw new UnsupportedOperationException("No cluster in benchmarks");
+        }, new ESIndexer.BulkSettings());
+        meeting = new LaLouvMeetingParser().parse(MinutesFixtures.synthetic(copies));
+    }
+
+    @Benchmark
+    public IndexRequest indexRequest(){
+        return indexer.indexRequest(meeting);
+    }
+}
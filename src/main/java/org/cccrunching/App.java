@@ -1,20 +1,34 @@
 package org.cccrunching;
 
 import com.google.gson.Gson;
+import org.cccrunching.analytics.ColumnarMeetingStore;
+import org.cccrunching.analytics.ColumnarMeetingStore.Vote;
 import org.cccrunching.data.Meeting;
-import org.cccrunching.data.MeetingItem;
-import org.cccrunching.parser.lalouviere.LaLouvMeetingParser;
-import org.cccrunching.parser.MeetingParser;
+import org.cccrunching.data.TextStore;
+import org.cccrunching.data.binary.BinaryCorpusWriter;
+import org.cccrunching.data.json.CorpusLoader;
+import org.cccrunching.data.json.MeetingJson;
+import org.cccrunching.data.json.NdjsonMeetingWriter;
+import org.cccrunching.ingest.IngestionManifest;
+import org.cccrunching.ingest.MeetingIngestor;
+import org.cccrunching.parser.ExtractionProfile;
+import org.cccrunching.parser.ExtractionWorkerPool;
+import org.cccrunching.parser.MeetingParserRegistry;
 import org.cccrunching.parser.PDFExtractor;
+import org.cccrunching.parser.TextCache;
+import org.cccrunching.search.Indexer;
+import org.cccrunching.search.LuceneIndexer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.LocalDate;
+import java.text.Normalizer;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 public class App {
 
@@ -26,37 +40,117 @@ public class App {
         }
         String directory = args[0];
         String output    = args[1];
-        List<Meeting> allMeetings = new ArrayList<>();
+        int parallelism = Integer.getInteger("cccrunching.parallelism", Runtime.getRuntime().availableProcessors());
         LOG.info("Processing all PDFs in {}",directory);
-        Files.list(Paths.get(directory))
-                .filter(Files::isRegularFile)
-                .forEach(f -> {
-                            LOG.info("Parsing meeting information from {}",f);
-                          PDFExtractor pdfExtractor = new PDFExtractor();
-                          String text = pdfExtractor.pdfAsText(f.toFile());
-                          MeetingParser meetingParser = new LaLouvMeetingParser();
-                          try {
-                              Meeting meeting = meetingParser.parse(text);
-                              allMeetings.add(meeting);
-                          } catch (IllegalArgumentException e){
-                              LOG.warn("Skipping {} because it was not parseable",f);
-                              LOG.warn("Exception that failed the parsing",e);
-                          }
-                      }
-              );
-        Collections.sort(allMeetings, Comparator.comparing(m -> m.getMeetingDate().orElse(LocalDate.MIN)));
-        LOG.info("Found {} meetings for a total of {} items", allMeetings.size(), allMeetings.stream().map(Meeting::getItems).collect(Collectors.summingInt(List::size)));
-        Gson gson = new Gson();
+        String manifestDirectory = System.getProperty("cccrunching.manifest");
+        IngestionManifest manifest = null;
+        if (manifestDirectory != null) {
+            LOG.info("Using ingestion manifest in {}, unchanged PDFs will not be parsed again", manifestDirectory);
+            manifest = IngestionManifest.open(Paths.get(manifestDirectory));
+        }
+        String textCacheDirectory = System.getProperty("cccrunching.textcache");
+        TextCache textCache = null;
+        if (textCacheDirectory != null) {
+            long maxBytes = Long.getLong("cccrunching.textcache.maxMB", 1024) * 1024 * 1024;
+            textCache = new TextCache(Paths.get(textCacheDirectory), maxBytes);
+        }
+        PDFExtractor.PageParallelism pageParallelism = new PDFExtractor.PageParallelism()
+                .threads(Integer.getInteger("cccrunching.pages.threads", 1))
+                .minPages(Integer.getInteger("cccrunching.pages.minPages", 100))
+                .minBytes(Long.getLong("cccrunching.pages.minBytes", -1));
+        ExtractionProfile profile = ExtractionProfile.textOnly()
+                .sortByPosition(Boolean.getBoolean("cccrunching.extraction.sortByPosition"));
+        String normalization = System.getProperty("cccrunching.extraction.normalization");
+        if (normalization != null) {
+            profile.normalization(Normalizer.Form.valueOf(normalization));
+        }
+        int workerCount = Integer.getInteger("cccrunching.workers", 0);
+        ExtractionWorkerPool workers = null;
+        PDFExtractor pdfExtractor;
+        if (workerCount > 0) {
+            ExtractionWorkerPool.Settings settings = new ExtractionWorkerPool.Settings()
+                    .workers(workerCount)
+                    .maxHeapMB(Integer.getInteger("cccrunching.workers.maxHeapMB", 512))
+                    .timeout(Long.getLong("cccrunching.workers.timeoutSeconds", 120), TimeUnit.SECONDS)
+                    .documentsPerWorker(Integer.getInteger("cccrunching.workers.documents", 100))
+                    .profile(profile);
+            String quarantineDirectory = System.getProperty("cccrunching.quarantine");
+            if (quarantineDirectory != null) {
+                settings.quarantine(Paths.get(quarantineDirectory));
+            }
+            LOG.info("Extracting PDFs in {} isolated worker processes", workerCount);
+            workers = new ExtractionWorkerPool(settings);
+            pdfExtractor = new PDFExtractor(textCache, workers);
+        } else {
+            pdfExtractor = new PDFExtractor(textCache, pageParallelism, profile);
+        }
+        MeetingIngestor ingestor = new MeetingIngestor(parallelism, pdfExtractor, MeetingParserRegistry.load(), manifest);
+        if (Boolean.getBoolean("cccrunching.metrics.jmx")) {
+            ingestor.getMetrics().registerMBean();
+        }
+        Path metricsReport = Paths.get(System.getProperty("cccrunching.metrics", output + ".metrics.json"));
+        // a file instead of a directory is the output of a previous run, loaded instead of parsing the PDFs again
+        Path input = Paths.get(directory);
+        CorpusLoader loader = Files.isRegularFile(input) ? new CorpusLoader() : null;
+        if (loader != null) {
+            LOG.info("Loading the meetings of a previous run from {}", input);
+        }
+        List<Meeting> allMeetings;
+        try {
+            if (output.endsWith(".ndjson")) {
+                LOG.info("Streaming result to {}", output);
+                ColumnarMeetingStore.Builder store = ColumnarMeetingStore.builder();
+                try (NdjsonMeetingWriter writer = new NdjsonMeetingWriter(Paths.get(output));
+                     BinaryCorpusWriter corpus = corpusWriter()) {
+                    Consumer<Meeting> consumer = corpus == null ? writer.andThen(store) : writer.andThen(store).andThen(corpus);
+                    if (loader != null) {
+                        loader.load(input, consumer);
+                    } else {
+                        ingestor.ingest(input, consumer);
+                    }
+                    LOG.info("Stored {} meetings in {}", writer.getWritten(), output);
+                }
+                ingestor.getMetrics().writeReport(metricsReport);
+                logStatistics(store.build());
+                return;
+            }
+            // the discussions and decisions are most of the corpus, they are kept compressed unless disabled
+            TextStore texts = Boolean.parseBoolean(System.getProperty("cccrunching.compressTexts", "true")) ? new TextStore() : null;
+            if (loader != null) {
+                List<Meeting> meetings = new ArrayList<>();
+                loader.load(input, m -> meetings.add(texts == null ? m : m.compact(texts)));
+                allMeetings = meetings;
+            } else {
+                allMeetings = ingestor.ingest(input, texts);
+            }
+            if (texts != null) {
+                LOG.info("Compressed {} bytes of item texts to {} bytes", texts.getTextBytes(), texts.getCompressedBytes());
+            }
+        } finally {
+            if (workers != null) {
+                workers.close();
+            }
+        }
+        ingestor.getMetrics().writeReport(metricsReport);
+        Gson gson = MeetingJson.gson();
         LOG.info("Storing result in {}", output);
         try(BufferedWriter w =Files.newBufferedWriter(Paths.get(output))){
             gson.toJson(allMeetings,w);
         }
+        logStatistics(ColumnarMeetingStore.of(allMeetings));
+        try (BinaryCorpusWriter corpus = corpusWriter()) {
+            if (corpus != null) {
+                allMeetings.forEach(corpus);
+            }
+        }
 
-        LOG.info("Number of unanimous votes: {}", allMeetings.stream().map(Meeting::getItems).flatMap(List::stream).filter(x -> x.isUnanimousVote().orElse(true)).collect(Collectors.counting()));
-        LOG.info("Attendance report {}",allMeetings.stream().map(Meeting::getAttendees).flatMap(List::stream).collect(Collectors.groupingBy(p -> p.getName(), Collectors.counting())));
-
-        List<MeetingItem> contentiousItems = allMeetings.stream().map(Meeting::getItems).flatMap(List::stream).filter(x -> !x.isUnanimousVote().orElse(true)).collect(Collectors.toList());
-        LOG.info("Number of contentious items: {}", contentiousItems.size());
+        String luceneDirectory = System.getProperty("cccrunching.lucene");
+        if (luceneDirectory != null) {
+            LOG.info("Indexing in local Lucene index {}", luceneDirectory);
+            try (Indexer indexer = new LuceneIndexer(Paths.get(luceneDirectory))) {
+                indexer.index(allMeetings);
+            }
+        }
         /*
         LOG.info("Indexing in Elasticsearch");
         try (Indexer indexer = new ESIndexer()) {
@@ -72,4 +166,24 @@ public class App {
         meetingItemAnalyzer.analyze(debateItems.values().stream().filter(i -> i.getDiscussion() != null).findFirst().orElseThrow(() ->new RuntimeException("No item found")));
         */
     }
+
+    /**
+     * @return the writer of the binary corpus requested with cccrunching.corpus, null if none was requested
+     */
+    private static BinaryCorpusWriter corpusWriter() throws IOException {
+        String corpusFile = System.getProperty("cccrunching.corpus");
+        if (corpusFile == null) {
+            return null;
+        }
+        LOG.info("Storing binary corpus in {}", corpusFile);
+        return new BinaryCorpusWriter(Paths.get(corpusFile));
+    }
+
+    private static void logStatistics(ColumnarMeetingStore store){
+        LOG.info("Found {} meetings for a total of {} items", store.getMeetingCount(), store.getItemCount());
+        // items without a known vote are counted as unanimous
+        LOG.info("Number of unanimous votes: {}", store.countItems(Vote.UNANIMOUS) + store.countItems(Vote.UNKNOWN));
+        LOG.info("Attendance report {}", store.attendance());
+        LOG.info("Number of contentious items: {}", store.countItems(Vote.CONTENTIOUS));
+    }
 }
@@ -0,0 +1,256 @@
+package org.cccrunching.analytics;
+
+import org.cccrunching.data.Meeting;
+import org.cccrunching.data.MeetingItem;
+import org.cccrunching.data.Person;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Column oriented summary of a corpus of meetings, for the statistics computed over all the minutes.
+ * <p>
+ * Meetings are sorted by date, meetings without date first, and only their date, the vote of their
+ * items and their attendees are kept:
+ * <ul>
+ *     <li>the dates as epoch days in an int array, so a period is a range of meeting indexes found by binary search</li>
+ *     <li>the items of all the meetings one after the other, the items of a meeting being a range given by an
+ *     offsets array, with their votes as two bit sets</li>
+ *     <li>the attendees as ids of a person dictionary, with a bit set over the meetings for every person</li>
+ * </ul>
+ * Instances are immutable and thread-safe.
+ */
+public class ColumnarMeetingStore {
+
+    /**
+     * Outcome of the vote of an item
+     */
+    public enum Vote {
+        UNANIMOUS,
+        CONTENTIOUS,
+        /** no decision, or a decision without vote */
+        UNKNOWN
+    }
+
+    // epoch day of the meetings without date, sorted before all the others
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    private final String[] meetingIds;
+    private final int[] epochDays;
+    // items of meeting m are the indexes itemOffsets[m] to itemOffsets[m + 1] excluded
+    private final int[] itemOffsets;
+    private final BitSet voteKnown;
+    private final BitSet unanimous;
+    private final String[] personNames;
+    private final Map<String, Integer> personIds;
+    // meetings attended by every person, by person id
+    private final BitSet[] attendance;
+
+    private ColumnarMeetingStore(List<Row> rows){
+        rows.sort(Comparator.comparingInt(r -> r.epochDay));
+        meetingIds = new String[rows.size()];
+        epochDays = new int[rows.size()];
+        itemOffsets = new int[rows.size() + 1];
+        for (int m = 0; m < rows.size(); m++) {
+            meetingIds[m] = rows.get(m).id;
+            epochDays[m] = rows.get(m).epochDay;
+            itemOffsets[m + 1] = itemOffsets[m] + rows.get(m).votes.length;
+        }
+        voteKnown = new BitSet(itemOffsets[rows.size()]);
+        unanimous = new BitSet(itemOffsets[rows.size()]);
+        personIds = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        List<BitSet> attended = new ArrayList<>();
+        for (int m = 0; m < rows.size(); m++) {
+            Row row = rows.get(m);
+            for (int i = 0; i < row.votes.length; i++) {
+                if (row.votes[i] != Vote.UNKNOWN) {
+                    voteKnown.set(itemOffsets[m] + i);
+                    unanimous.set(itemOffsets[m] + i, row.votes[i] == Vote.UNANIMOUS);
+                }
+            }
+            for (String name : row.attendees) {
+                Integer id = personIds.get(name);
+                if (id == null) {
+                    id = names.size();
+                    personIds.put(name, id);
+                    names.add(name);
+                    attended.add(new BitSet(rows.size()));
+                }
+                attended.get(id).set(m);
+            }
+        }
+        personNames = names.toArray(new String[0]);
+        attendance = attended.toArray(new BitSet[0]);
+    }
+
+    public static Builder builder(){
+        return new Builder();
+    }
+
+    public static ColumnarMeetingStore of(Collection<Meeting> meetings){
+        Builder builder = builder();
+        meetings.forEach(builder);
+        return builder.build();
+    }
+
+    public int getMeetingCount(){
+        return meetingIds.length;
+    }
+
+    public int getItemCount(){
+        return itemOffsets[meetingIds.length];
+    }
+
+    public int getPersonCount(){
+        return personNames.length;
+    }
+
+    /**
+     * @return the ids of the meetings, sorted by date
+     */
+    public List<String> getMeetingIds(){
+        return Collections.unmodifiableList(Arrays.asList(meetingIds));
+    }
+
+    /**
+     * @param from first day of the period, included, null for no lower bound
+     * @param to last day of the period, included, null for no upper bound
+     * @return the number of meetings in the period, meetings without date only count without lower bound
+     */
+    public int countMeetings(LocalDate from, LocalDate to){
+        return Math.max(0, lastMeeting(to) - firstMeeting(from));
+    }
+
+    public int countItems(Vote vote){
+        return countItems(vote, null, null);
+    }
+
+    /**
+     * @return the number of items of the meetings of the period with the given vote outcome
+     */
+    public int countItems(Vote vote, LocalDate from, LocalDate to){
+        int firstMeeting = firstMeeting(from);
+        int first = itemOffsets[firstMeeting];
+        int last = itemOffsets[Math.max(firstMeeting, lastMeeting(to))];
+        int known = count(voteKnown, first, last);
+        switch (vote) {
+            case UNKNOWN:
+                return last - first - known;
+            case UNANIMOUS:
+                return count(unanimous, first, last);
+            default:
+                return known - count(unanimous, first, last);
+        }
+    }
+
+    /**
+     * @return the number of meetings attended by the person in the period, 0 for unknown persons
+     */
+    public int countAttendance(String person, LocalDate from, LocalDate to){
+        Integer id = personIds.get(person);
+        return id == null ? 0 : count(attendance[id], firstMeeting(from), lastMeeting(to));
+    }
+
+    /**
+     * @return the number of meetings attended by every person in the period, persons attending none are left out
+     */
+    public Map<String, Integer> attendance(LocalDate from, LocalDate to){
+        int first = firstMeeting(from);
+        int last = lastMeeting(to);
+        Map<String, Integer> counts = new TreeMap<>();
+        for (int id = 0; id < personNames.length; id++) {
+            int count = count(attendance[id], first, last);
+            if (count > 0) {
+                counts.put(personNames[id], count);
+            }
+        }
+        return counts;
+    }
+
+    public Map<String, Integer> attendance(){
+        return attendance(null, null);
+    }
+
+    private int firstMeeting(LocalDate from){
+        return from == null ? 0 : lowerBound(Math.toIntExact(from.toEpochDay()));
+    }
+
+    private int lastMeeting(LocalDate to){
+        return to == null ? epochDays.length : lowerBound(Math.toIntExact(to.toEpochDay()) + 1);
+    }
+
+    /**
+     * @return the index of the first meeting on or after the epoch day, meetings without date come before any day
+     */
+    private int lowerBound(int epochDay){
+        int low = 0;
+        int high = epochDays.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (epochDays[middle] < epochDay) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int count(BitSet bits, int from, int to){
+        int count = 0;
+        for (int i = bits.nextSetBit(from); i >= 0 && i < to; i = bits.nextSetBit(i + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Collects the columns of the meetings handed over, which can be fed from several threads. The meetings
+     * themselves are not retained.
+     */
+    public static class Builder implements Consumer<Meeting> {
+
+        private final List<Row> rows = new ArrayList<>();
+
+        private Builder(){
+        }
+
+        @Override
+        public void accept(Meeting meeting) {
+            Row row = new Row(meeting);
+            synchronized (this) {
+                rows.add(row);
+            }
+        }
+
+        public synchronized ColumnarMeetingStore build(){
+            return new ColumnarMeetingStore(new ArrayList<>(rows));
+        }
+    }
+
+    private static final class Row {
+
+        private final String id;
+        private final int epochDay;
+        private final Vote[] votes;
+        private final String[] attendees;
+
+        Row(Meeting meeting){
+            this.id = meeting.getId();
+            this.epochDay = meeting.getMeetingDate().map(d -> Math.toIntExact(d.toEpochDay())).orElse(NO_DATE);
+            List<MeetingItem> items = meeting.getItems();
+            this.votes = new Vote[items.size()];
+            for (int i = 0; i < votes.length; i++) {
+                MeetingItem item = items.get(i);
+                votes[i] = !item.hasVote() ? Vote.UNKNOWN : item.isUnanimous() ? Vote.UNANIMOUS : Vote.CONTENTIOUS;
+            }
+            List<Person> persons = meeting.getAttendees();
+            this.attendees = new String[persons.size()];
+            for (int i = 0; i < attendees.length; i++) {
+                attendees[i] = persons.get(i).getName();
+            }
+        }
+    }
+}
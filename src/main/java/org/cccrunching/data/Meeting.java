@@ -1,15 +1,26 @@
 package org.cccrunching.data;
 
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.*;
 
+/**
+ * Minutes of a city council meeting. Unless set explicitly, the id is derived from the city, date and title
+ * of the meeting, so that parsing the same minutes again gives the same id.
+ */
 public class Meeting {
 
-    private final List<MeetingItem> items = new ArrayList<>();
+    private final List<MeetingItem> items;
+    private final String city;
     private final String title;
     private final LocalDate meetingDate;
     private final String id;
-    private final List<Person> attendees = new ArrayList<>();
+    private final List<Person> attendees;
+    // computed on first use, not serialized
+    private transient volatile String contentHash;
 
 
     public Meeting(String title){
@@ -17,26 +28,57 @@ public class Meeting {
     }
 
     public Meeting(String title, LocalDate meetingDate){
-        this(UUID.randomUUID().toString(), title, meetingDate);
+        this(null, title, meetingDate);
+    }
+
+    public Meeting(String city, String title, LocalDate meetingDate){
+        this(id(city, title, meetingDate), city, title, meetingDate, Collections.emptyList(), Collections.emptyList());
     }
 
-    private Meeting(String id, String title, LocalDate meetingDate){
+    private Meeting(String id, String city, String title, LocalDate meetingDate, List<MeetingItem> items, List<Person> attendees){
         if (title == null) throw new IllegalArgumentException("Meeting title may not be null");
+        this.city = city;
         this.title = title;
         this.meetingDate = meetingDate;
         this.id = id;
+        this.items = Collections.unmodifiableList(new ArrayList<>(items));
+        this.attendees = Collections.unmodifiableList(new ArrayList<>(attendees));
+    }
+
+    /**
+     * @return the name based UUID of the meeting with the given city, possibly null, title and date
+     */
+    public static String id(String city, String title, LocalDate meetingDate){
+        String key = (city == null ? "" : city) + '\n' + (meetingDate == null ? "" : meetingDate.toString()) + '\n' + title;
+        return UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString();
     }
 
+    public static Builder builder(String title, LocalDate meetingDate){
+        return builder(null, title, meetingDate);
+    }
+
+    public static Builder builder(String city, String title, LocalDate meetingDate){
+        return new Builder(null, city, title, meetingDate);
+    }
+
+    /**
+     * @return a builder starting with the content of this meeting, the built meeting keeps the same id
+     */
+    public Builder toBuilder(){
+        return new Builder(id, city, title, meetingDate)
+                .addItems(items)
+                .addAttendees(attendees);
+    }
+
+    /**
+     * Copies the meeting with one more item, prefer a {@link Builder} to add several items
+     */
     public Meeting add(MeetingItem item){
         return addAll(Collections.singletonList(item));
     }
 
     public Meeting addAll(Collection<MeetingItem> item){
-        Meeting that = new Meeting(title,meetingDate);
-        that.items.addAll(this.items);
-        that.items.addAll(item);
-        that.attendees.addAll(this.attendees);
-        return that;
+        return toBuilder().addItems(item).build();
     }
 
     public Meeting addAttendee(Person attendee){
@@ -44,11 +86,20 @@ public class Meeting {
     }
 
     public Meeting addAttendees(Collection<Person> attendees){
-        Meeting that = new Meeting(title,meetingDate);
-        that.items.addAll(this.items);
-        that.attendees.addAll(this.attendees);
-        that.attendees.addAll(attendees);
-        return that;
+        return toBuilder().addAttendees(attendees).build();
+    }
+
+    /**
+     * @return a copy with the texts of the items moved to the store, see {@link MeetingItem#compact(TextStore)}
+     */
+    public Meeting compact(TextStore texts){
+        List<MeetingItem> compacted = new ArrayList<>(items.size());
+        for (MeetingItem item : items) {
+            compacted.add(item.compact(texts));
+        }
+        Meeting meeting = new Meeting(id, city, title, meetingDate, compacted, attendees);
+        meeting.contentHash = contentHash;
+        return meeting;
     }
 
     public List<MeetingItem> getItems() {
@@ -59,6 +110,10 @@ public class Meeting {
         return title;
     }
 
+    public Optional<String> getCity() {
+        return Optional.ofNullable(city);
+    }
+
     public Optional<LocalDate> getMeetingDate() {
         return Optional.ofNullable(meetingDate);
     }
@@ -70,4 +125,82 @@ public class Meeting {
     public List<Person> getAttendees() {
         return attendees;
     }
+
+    /**
+     * @return a hash of everything but the id, which changes whenever the content of the meeting does
+     */
+    public String getContentHash() {
+        String hash = contentHash;
+        if (hash == null) {
+            Hasher hasher = Hashing.murmur3_128().newHasher();
+            MeetingItem.putNullable(hasher, city);
+            MeetingItem.putNullable(hasher, title);
+            MeetingItem.putNullable(hasher, meetingDate == null ? null : meetingDate.toString());
+            hasher.putInt(items.size());
+            for (MeetingItem item : items) {
+                hasher.putString(item.getContentHash(), StandardCharsets.UTF_8);
+            }
+            hasher.putInt(attendees.size());
+            for (Person attendee : attendees) {
+                MeetingItem.putNullable(hasher, attendee.getName());
+            }
+            hash = hasher.hash().toString();
+            contentHash = hash;
+        }
+        return hash;
+    }
+
+    /**
+     * Mutable accumulator of items and attendees, creating the immutable {@link Meeting} once everything is known.
+     * A builder is not thread-safe.
+     */
+    public static class Builder {
+
+        private String id;
+        private final String city;
+        private final String title;
+        private final LocalDate meetingDate;
+        private final List<MeetingItem> items = new ArrayList<>();
+        private final List<Person> attendees = new ArrayList<>();
+
+        private Builder(String id, String city, String title, LocalDate meetingDate){
+            if (title == null) throw new IllegalArgumentException("Meeting title may not be null");
+            this.id = id;
+            this.city = city;
+            this.title = title;
+            this.meetingDate = meetingDate;
+        }
+
+        /**
+         * Sets the id instead of deriving it from the city, title and date
+         */
+        public Builder id(String id){
+            this.id = id;
+            return this;
+        }
+
+        public Builder addItem(MeetingItem item){
+            items.add(item);
+            return this;
+        }
+
+        public Builder addItems(Collection<MeetingItem> items){
+            this.items.addAll(items);
+            return this;
+        }
+
+        public Builder addAttendee(Person attendee){
+            attendees.add(attendee);
+            return this;
+        }
+
+        public Builder addAttendees(Collection<Person> attendees){
+            this.attendees.addAll(attendees);
+            return this;
+        }
+
+        public Meeting build(){
+            return new Meeting(id == null ? Meeting.id(city, title, meetingDate) : id, city, title, meetingDate, items, attendees);
+        }
+    }
 }
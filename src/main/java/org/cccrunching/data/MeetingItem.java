@@ -1,16 +1,33 @@
 package org.cccrunching.data;
 
 
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 import java.util.Optional;
 
 public class MeetingItem {
 
+    // values of the vote flags, also hashed by getContentHash()
+    private static final byte VOTE_CONTENTIOUS = 0;
+    private static final byte VOTE_UNANIMOUS = 1;
+    private static final byte VOTE_UNKNOWN = 2;
+
+    private static final Optional<Boolean> UNANIMOUS = Optional.of(true);
+    private static final Optional<Boolean> CONTENTIOUS = Optional.of(false);
+
     private final String discussion;
     private final String title;
     private final String decision;
-
-    private Boolean unanimousVote;
+    private final byte vote;
+    // store of the discussion and decision of a compacted item, which then has no Strings for them
+    private final transient TextStore texts;
+    private final transient long discussionRef;
+    private final transient long decisionRef;
+    // computed on first use, not serialized
+    private transient volatile String contentHash;
 
     public MeetingItem(String title){
         this(title, null, null,null);
@@ -24,7 +41,30 @@ public class MeetingItem {
         this.title = title;
         this.discussion = discussion;
         this.decision = decision;
-        this.unanimousVote = unanimousVote;
+        this.vote = unanimousVote == null ? VOTE_UNKNOWN : unanimousVote ? VOTE_UNANIMOUS : VOTE_CONTENTIOUS;
+        this.texts = null;
+        this.discussionRef = TextStore.NONE;
+        this.decisionRef = TextStore.NONE;
+    }
+
+    private MeetingItem(MeetingItem item, TextStore texts){
+        this.title = item.title;
+        this.discussion = null;
+        this.decision = null;
+        this.vote = item.vote;
+        this.texts = texts;
+        this.discussionRef = texts.put(item.getDiscussion());
+        this.decisionRef = texts.put(item.getDecision());
+        this.contentHash = item.contentHash;
+    }
+
+    /**
+     * Moves the discussion and decision to a compressed store, they are then decoded on every call
+     * to their getter. The copy equals this item.
+     * @return the compacted copy, this item if it is already compacted
+     */
+    public MeetingItem compact(TextStore texts){
+        return this.texts != null ? this : new MeetingItem(this, texts);
     }
 
     public String getTitle() {
@@ -32,15 +72,64 @@ public class MeetingItem {
     }
 
     public String getDiscussion() {
-        return discussion;
+        return texts == null ? discussion : texts.get(discussionRef);
     }
 
     public String getDecision() {
-        return decision;
+        return texts == null ? decision : texts.get(decisionRef);
     }
 
+    /**
+     * @return whether the decision was taken unanimously, empty without decision or vote. Never allocates.
+     */
     public Optional<Boolean> isUnanimousVote(){
-        return Optional.ofNullable(unanimousVote);
+        switch (vote) {
+            case VOTE_UNANIMOUS:
+                return UNANIMOUS;
+            case VOTE_CONTENTIOUS:
+                return CONTENTIOUS;
+            default:
+                return Optional.empty();
+        }
+    }
+
+    public boolean hasVote(){
+        return vote != VOTE_UNKNOWN;
+    }
+
+    /**
+     * @return whether the vote is known and unanimous
+     */
+    public boolean isUnanimous(){
+        return vote == VOTE_UNANIMOUS;
+    }
+
+    /**
+     * @return a hash of the title, discussion, decision and vote of the item
+     */
+    public String getContentHash() {
+        String hash = contentHash;
+        if (hash == null) {
+            Hasher hasher = Hashing.murmur3_128().newHasher();
+            putNullable(hasher, title);
+            putNullable(hasher, getDiscussion());
+            putNullable(hasher, getDecision());
+            hasher.putByte(vote);
+            hash = hasher.hash().toString();
+            contentHash = hash;
+        }
+        return hash;
+    }
+
+    /**
+     * Hashes a string prefixed by its length, so that consecutive strings cannot be confused
+     */
+    static void putNullable(Hasher hasher, String value){
+        if (value == null) {
+            hasher.putInt(-1);
+        } else {
+            hasher.putInt(value.length()).putString(value, StandardCharsets.UTF_8);
+        }
     }
 
     @Override
@@ -48,22 +137,22 @@ public class MeetingItem {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         MeetingItem that = (MeetingItem) o;
-        return Objects.equals(discussion, that.discussion) &&
+        return Objects.equals(getDiscussion(), that.getDiscussion()) &&
                 Objects.equals(title, that.title) &&
-                Objects.equals(decision, that.decision);
+                Objects.equals(getDecision(), that.getDecision());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(discussion, title, decision);
+        return Objects.hash(getDiscussion(), title, getDecision());
     }
 
     @Override
     public String toString() {
         return "MeetingItem{" +
-                "discussion='" + discussion + '\'' +
+                "discussion='" + getDiscussion() + '\'' +
                 ", title='" + title + '\'' +
-                ", decision='" + decision + '\'' +
+                ", decision='" + getDecision() + '\'' +
                 '}';
     }
 }
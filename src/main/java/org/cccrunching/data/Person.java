@@ -2,8 +2,14 @@ package org.cccrunching.data;
 
 import java.util.Objects;
 
+/**
+ * Person named in the minutes. Parsed persons are interned with {@link #of(String, String)},
+ * the constructors create persons outside of any dictionary.
+ */
 public class Person {
 
+    // id of the person in the global dictionary, -1 when not interned
+    private final transient int id;
     private final String name;
     private final String title;
 
@@ -12,14 +18,41 @@ public class Person {
     }
 
     public Person(String name, String title){
+        this(-1, name, title);
+    }
+
+    Person(int id, String name, String title){
+        this.id     = id;
         this.name   = name;
         this.title  = title;
     }
 
+    public static Person of(String name){
+        return of(name, null);
+    }
+
+    /**
+     * @return the person interned in the {@link PersonDictionary#global()} dictionary
+     */
+    public static Person of(String name, String title){
+        return PersonDictionary.global().intern(name, title);
+    }
+
+    /**
+     * @return the id of the person in the global dictionary, -1 if the person was not interned
+     */
+    public int getId() {
+        return id;
+    }
+
     public String getName() {
         return name;
     }
 
+    public String getTitle() {
+        return title;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,61 @@
+package org.cccrunching.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Interns the persons met in the minutes, so that the few dozen councillors attending every meeting are
+ * each a single {@link Person} instance, identified by a small integer id in order of first appearance.
+ * Instances are thread-safe.
+ */
+public final class PersonDictionary {
+
+    private static final PersonDictionary GLOBAL = new PersonDictionary();
+
+    private final ConcurrentMap<String, Person> persons = new ConcurrentHashMap<>();
+    private final List<Person> byId = new ArrayList<>();
+
+    /**
+     * @return the dictionary shared by the whole process, used by {@link Person#of(String, String)}
+     */
+    public static PersonDictionary global(){
+        return GLOBAL;
+    }
+
+    /**
+     * @return the single instance of the person with the given name and title, created on first use
+     */
+    public Person intern(String name, String title){
+        String key = title == null ? name : name + '\n' + title;
+        Person person = persons.get(key);
+        if (person != null) {
+            return person;
+        }
+        synchronized (byId) {
+            person = persons.get(key);
+            if (person == null) {
+                person = new Person(byId.size(), name, title);
+                byId.add(person);
+                persons.put(key, person);
+            }
+            return person;
+        }
+    }
+
+    /**
+     * @throws IndexOutOfBoundsException if no person has this id
+     */
+    public Person get(int id){
+        synchronized (byId) {
+            return byId.get(id);
+        }
+    }
+
+    public int size(){
+        synchronized (byId) {
+            return byId.size();
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package org.cccrunching.data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Append-only store of texts compressed by blocks, holding the long texts of the items of a whole corpus
+ * in a fraction of the memory their Strings would take.
+ * <p>
+ * Texts are appended as UTF-8, prefixed by their length, to a pending block which is deflated once full.
+ * A text is referenced by a long made of its block number and its offset in the block. Reading a text
+ * inflates its whole block, the most recently inflated blocks being kept in a small LRU cache since the
+ * texts of a meeting are usually read together.
+ * <p>
+ * Instances are thread-safe. The lock only guards the pending block, the list of blocks and the cache:
+ * blocks are deflated and inflated outside of it, so that readers and writers do not wait for one another.
+ */
+public class TextStore {
+
+    /**
+     * Reference of the null text
+     */
+    public static final long NONE = -1;
+
+    private final int blockSize;
+    // deflated blocks, each prefixed by its inflated length, null while the block is being deflated
+    private final List<byte[]> blocks = new ArrayList<>();
+    // full blocks being deflated, read as is until then
+    private final Map<Integer, byte[]> sealing = new HashMap<>();
+    private final Map<Integer, byte[]> inflated;
+    private byte[] pending;
+    private int pendingSize;
+    private long textBytes;
+    private long compressedBytes;
+    private long sealingBytes;
+
+    public TextStore(){
+        this(64 * 1024, 16);
+    }
+
+    /**
+     * @param blockSize number of bytes of texts deflated together, larger texts get a block of their own
+     * @param cachedBlocks number of inflated blocks kept in memory
+     */
+    public TextStore(int blockSize, int cachedBlocks){
+        if (blockSize < 1 || cachedBlocks < 1){
+            throw new IllegalArgumentException("Block size and cached blocks must be positive");
+        }
+        this.blockSize = blockSize;
+        this.pending = new byte[blockSize];
+        this.inflated = new LinkedHashMap<Integer, byte[]>(cachedBlocks * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, byte[]> eldest) {
+                return size() > cachedBlocks;
+            }
+        };
+    }
+
+    /**
+     * @return the reference of the text, {@link #NONE} for null
+     */
+    public long put(String text){
+        if (text == null) {
+            return NONE;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        int length = 4 + bytes.length;
+        long reference;
+        int sealed = -1;
+        byte[] sealedBytes = null;
+        int sealedSize = 0;
+        synchronized (this) {
+            if (pendingSize > 0 && pendingSize + length > blockSize) {
+                sealedBytes = pending;
+                sealedSize = pendingSize;
+                sealed = seal();
+            }
+            if (length > pending.length) {
+                pending = new byte[length];
+            }
+            reference = (long) blocks.size() << 32 | pendingSize;
+            writeInt(pending, pendingSize, bytes.length);
+            System.arraycopy(bytes, 0, pending, pendingSize + 4, bytes.length);
+            pendingSize += length;
+            textBytes += bytes.length;
+        }
+        if (sealed >= 0) {
+            deflate(sealed, sealedBytes, sealedSize);
+        }
+        return reference;
+    }
+
+    /**
+     * @param reference reference returned by {@link #put(String)}
+     */
+    public String get(long reference){
+        if (reference == NONE) {
+            return null;
+        }
+        int block = (int) (reference >>> 32);
+        int offset = (int) reference;
+        byte[] bytes;
+        byte[] deflated = null;
+        synchronized (this) {
+            if (block == blocks.size()) {
+                return text(pending, offset);
+            }
+            bytes = sealing.get(block);
+            if (bytes == null) {
+                bytes = inflated.get(block);
+            }
+            if (bytes == null) {
+                deflated = blocks.get(block);
+            }
+        }
+        if (bytes == null) {
+            // two threads missing the same block both inflate it, which is cheaper than making one wait
+            bytes = inflate(block, deflated);
+            synchronized (this) {
+                inflated.put(block, bytes);
+            }
+        }
+        return text(bytes, offset);
+    }
+
+    /**
+     * @return the size of all the texts as UTF-8
+     */
+    public synchronized long getTextBytes(){
+        return textBytes;
+    }
+
+    /**
+     * @return the size of the deflated blocks plus the used part of the blocks not deflated yet
+     */
+    public synchronized long getCompressedBytes(){
+        return compressedBytes + sealingBytes + pendingSize;
+    }
+
+    /**
+     * Hands the pending block over to {@link #deflate(int, byte[], int)}, to be called with the lock held
+     * @return the number of the block
+     */
+    private int seal(){
+        int block = blocks.size();
+        blocks.add(null);
+        sealing.put(block, pending);
+        sealingBytes += pendingSize;
+        pending = new byte[blockSize];
+        pendingSize = 0;
+        return block;
+    }
+
+    private void deflate(int block, byte[] bytes, int size){
+        Deflater deflater = new Deflater();
+        byte[] deflated;
+        try {
+            deflater.setInput(bytes, 0, size);
+            deflater.finish();
+            byte[] buffer = new byte[4 + size + size / 100 + 64];
+            writeInt(buffer, 0, size);
+            int deflatedSize = 4;
+            while (!deflater.finished()) {
+                if (deflatedSize == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                deflatedSize += deflater.deflate(buffer, deflatedSize, buffer.length - deflatedSize);
+            }
+            deflated = Arrays.copyOf(buffer, deflatedSize);
+        } finally {
+            deflater.end();
+        }
+        synchronized (this) {
+            blocks.set(block, deflated);
+            sealing.remove(block);
+            sealingBytes -= size;
+            compressedBytes += deflated.length;
+        }
+    }
+
+    private static byte[] inflate(int block, byte[] deflated){
+        byte[] bytes = new byte[readInt(deflated, 0)];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(deflated, 4, deflated.length - 4);
+            int size = 0;
+            while (size < bytes.length) {
+                int inflatedBytes = inflater.inflate(bytes, size, bytes.length - size);
+                if (inflatedBytes == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new IllegalStateException("Truncated text block " + block);
+                }
+                size += inflatedBytes;
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupted text block " + block, e);
+        } finally {
+            inflater.end();
+        }
+        return bytes;
+    }
+
+    private static String text(byte[] bytes, int offset){
+        return new String(bytes, offset + 4, readInt(bytes, offset), StandardCharsets.UTF_8);
+    }
+
+    private static void writeInt(byte[] bytes, int offset, int value){
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] bytes, int offset){
+        return (bytes[offset] & 0xFF) << 24 | (bytes[offset + 1] & 0xFF) << 16 | (bytes[offset + 2] & 0xFF) << 8 | (bytes[offset + 3] & 0xFF);
+    }
+}
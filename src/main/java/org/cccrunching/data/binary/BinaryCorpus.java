@@ -0,0 +1,226 @@
+package org.cccrunching.data.binary;
+
+import org.cccrunching.data.Meeting;
+import org.cccrunching.data.MeetingItem;
+import org.cccrunching.data.Person;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Corpus of meetings written by {@link BinaryCorpusWriter}, read from a memory mapped file. Opening a corpus
+ * only checks its header, meetings are decoded when they are fetched, by id or by period through the indexes
+ * of the file.
+ * <p>
+ * The file starts with a header of {@value #HEADER_SIZE} bytes: magic number, format version, number of
+ * meetings, an unused int, then the offsets of the two indexes. The meeting records follow, then the id index,
+ * made of the offsets of the records sorted by the UTF-8 bytes of their id, and the date index, made of the
+ * epoch day and offset of the records sorted by date, meetings without date first. All numbers are big-endian,
+ * strings are the length of their UTF-8 bytes followed by the bytes, -1 standing for null.
+ * <p>
+ * Instances are immutable and thread-safe. The mapping is released when the instance is garbage collected.
+ */
+public class BinaryCorpus {
+
+    static final int MAGIC = 0x43434342;
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    // epoch day of the meetings without date, sorted before all the others
+    static final int NO_DATE = Integer.MIN_VALUE;
+    static final byte VOTE_CONTENTIOUS = 0;
+    static final byte VOTE_UNANIMOUS = 1;
+    static final byte VOTE_UNKNOWN = 2;
+
+    private static final int DATE_ENTRY_SIZE = 12;
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int idIndex;
+    private final int dateIndex;
+
+    private BinaryCorpus(ByteBuffer buffer, Path file) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a binary corpus: " + file);
+        }
+        int version = buffer.getInt(4);
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported binary corpus format version " + version + " in " + file);
+        }
+        this.size = buffer.getInt(8);
+        long idIndex = buffer.getLong(16);
+        long dateIndex = buffer.getLong(24);
+        if (size < 0 || idIndex < HEADER_SIZE || dateIndex != idIndex + 8L * size
+                || dateIndex + (long) DATE_ENTRY_SIZE * size != buffer.capacity()) {
+            throw new IOException("Truncated or corrupted binary corpus " + file);
+        }
+        this.idIndex = (int) idIndex;
+        this.dateIndex = (int) dateIndex;
+    }
+
+    /**
+     * Maps the corpus file, which must be smaller than 2 GB
+     */
+    public static BinaryCorpus open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Binary corpus " + file + " is too large to be mapped, " + channel.size() + " bytes");
+            }
+            // the mapping stays valid once the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new BinaryCorpus(buffer, file);
+        }
+    }
+
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Looks the id up by binary search, comparing the bytes of the file without decoding them
+     * @return the meeting with the given id, any of them if several meetings have that id
+     */
+    public Optional<Meeting> get(String id){
+        byte[] key = id.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int offset = (int) buffer.getLong(idIndex + 8 * middle);
+            int comparison = compareString(offset, key);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return Optional.of(new Reader().meeting(offset));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @param from first day of the period, included, null for no lower bound
+     * @param to last day of the period, included, null for no upper bound
+     * @return the meetings of the period sorted by date, meetings without date only come without lower bound
+     */
+    public List<Meeting> between(LocalDate from, LocalDate to){
+        int first = from == null ? 0 : lowerBound(Math.toIntExact(from.toEpochDay()));
+        int last = to == null ? size : lowerBound(Math.toIntExact(to.toEpochDay()) + 1);
+        List<Meeting> meetings = new ArrayList<>(Math.max(0, last - first));
+        Reader reader = new Reader();
+        for (int i = first; i < last; i++) {
+            meetings.add(reader.meeting((int) buffer.getLong(dateIndex + DATE_ENTRY_SIZE * i + 4)));
+        }
+        return meetings;
+    }
+
+    /**
+     * @return all the meetings, sorted by date
+     */
+    public List<Meeting> getAll(){
+        return between(null, null);
+    }
+
+    /**
+     * @return the index in the date index of the first meeting on or after the epoch day
+     */
+    private int lowerBound(int epochDay){
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (buffer.getInt(dateIndex + DATE_ENTRY_SIZE * middle) < epochDay) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Compares the string at the offset with the key as unsigned bytes, the order used by the writer
+     */
+    private int compareString(int offset, byte[] key){
+        int length = buffer.getInt(offset);
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int comparison = (buffer.get(offset + 4 + i) & 0xFF) - (key[i] & 0xFF);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return length - key.length;
+    }
+
+    /**
+     * Cursor over the records, reading numbers with absolute gets so that the shared buffer is never modified.
+     * The bytes of a string are bulk copied through a single view of the buffer into a reused array: decoding
+     * the array takes the fast paths of String, which a CharsetDecoder reading the mapped file lacks.
+     */
+    private final class Reader {
+
+        private final ByteBuffer view = buffer.duplicate();
+        private byte[] bytes = new byte[256];
+        private int position;
+
+        Meeting meeting(int offset){
+            position = offset;
+            String id = string();
+            String city = string();
+            String title = string();
+            int epochDay = integer();
+            Meeting.Builder meeting = Meeting.builder(city, title, epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay))
+                    .id(id);
+            int items = integer();
+            for (int i = 0; i < items; i++) {
+                String itemTitle = string();
+                String discussion = string();
+                String decision = string();
+                byte vote = value();
+                meeting.addItem(new MeetingItem(itemTitle, discussion, decision, vote == VOTE_UNKNOWN ? null : vote == VOTE_UNANIMOUS));
+            }
+            int attendees = integer();
+            for (int i = 0; i < attendees; i++) {
+                meeting.addAttendee(Person.of(string(), string()));
+            }
+            return meeting.build();
+        }
+
+        byte value(){
+            return buffer.get(position++);
+        }
+
+        int integer(){
+            int value = buffer.getInt(position);
+            position += 4;
+            return value;
+        }
+
+        String string(){
+            int length = integer();
+            if (length < 0) {
+                return null;
+            }
+            if (bytes.length < length) {
+                bytes = new byte[Math.max(length, bytes.length * 2)];
+            }
+            // through Buffer, ByteBuffer.position(int) only exists from Java 9
+            ((Buffer) view).position(position);
+            view.get(bytes, 0, length);
+            position += length;
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
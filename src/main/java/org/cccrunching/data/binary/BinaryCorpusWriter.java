@@ -0,0 +1,159 @@
+package org.cccrunching.data.binary;
+
+import com.google.common.primitives.UnsignedBytes;
+import org.cccrunching.data.Meeting;
+import org.cccrunching.data.MeetingItem;
+import org.cccrunching.data.Person;
+
+import java.io.*;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Writes meetings in the format read by {@link BinaryCorpus}, as soon as they are handed over. Only the id,
+ * date and position of every meeting are kept in memory, to write the indexes when the writer is closed.
+ * It is safe to feed the writer from several threads.
+ */
+public class BinaryCorpusWriter implements Consumer<Meeting>, Closeable {
+
+    private final Path output;
+    private final FileChannel channel;
+    private final OutputStream out;
+    // the record being written, copied to the file once complete
+    private final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+    private final DataOutputStream record = new DataOutputStream(recordBytes);
+    private final List<Entry> entries = new ArrayList<>();
+    private long position = BinaryCorpus.HEADER_SIZE;
+    private boolean closed;
+
+    public BinaryCorpusWriter(Path output) throws IOException {
+        this.output = output;
+        this.channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.channel.position(BinaryCorpus.HEADER_SIZE);
+        // records and indexes are written after the header, which is filled in once the indexes are known
+        this.out = new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+    }
+
+    @Override
+    public synchronized void accept(Meeting meeting) {
+        if (closed) {
+            throw new IllegalStateException("Binary corpus " + output + " is already closed");
+        }
+        try {
+            recordBytes.reset();
+            writeMeeting(record, meeting);
+            entries.add(new Entry(meeting.getId().getBytes(StandardCharsets.UTF_8),
+                    meeting.getMeetingDate().map(d -> Math.toIntExact(d.toEpochDay())).orElse(BinaryCorpus.NO_DATE),
+                    position));
+            recordBytes.writeTo(out);
+            position += recordBytes.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write meeting " + meeting.getId(), e);
+        }
+    }
+
+    public synchronized int getWritten() {
+        return entries.size();
+    }
+
+    /**
+     * Writes the indexes and the header, the corpus can only be read once the writer is closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            DataOutputStream data = new DataOutputStream(out);
+            long idIndex = position;
+            List<Entry> byId = new ArrayList<>(entries);
+            Comparator<byte[]> bytes = UnsignedBytes.lexicographicalComparator();
+            byId.sort((a, b) -> bytes.compare(a.id, b.id));
+            for (Entry entry : byId) {
+                data.writeLong(entry.offset);
+            }
+            long dateIndex = idIndex + 8L * entries.size();
+            // the sort is stable, meetings of the same day stay in the order they were written
+            List<Entry> byDate = new ArrayList<>(entries);
+            byDate.sort(Comparator.comparingInt(e -> e.epochDay));
+            for (Entry entry : byDate) {
+                data.writeInt(entry.epochDay);
+                data.writeLong(entry.offset);
+            }
+            data.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(BinaryCorpus.HEADER_SIZE);
+            header.putInt(BinaryCorpus.MAGIC)
+                    .putInt(BinaryCorpus.FORMAT_VERSION)
+                    .putInt(entries.size())
+                    .putInt(0)
+                    .putLong(idIndex)
+                    .putLong(dateIndex);
+            // through Buffer, ByteBuffer.flip() only exists from Java 9
+            ((Buffer) header).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    static void writeMeeting(DataOutputStream out, Meeting meeting) throws IOException {
+        writeString(out, meeting.getId());
+        writeString(out, meeting.getCity().orElse(null));
+        writeString(out, meeting.getTitle());
+        out.writeInt(meeting.getMeetingDate().map(d -> Math.toIntExact(d.toEpochDay())).orElse(BinaryCorpus.NO_DATE));
+        out.writeInt(meeting.getItems().size());
+        for (MeetingItem item : meeting.getItems()) {
+            writeString(out, item.getTitle());
+            writeString(out, item.getDiscussion());
+            writeString(out, item.getDecision());
+            out.writeByte(!item.hasVote() ? BinaryCorpus.VOTE_UNKNOWN : item.isUnanimous() ? BinaryCorpus.VOTE_UNANIMOUS : BinaryCorpus.VOTE_CONTENTIOUS);
+        }
+        out.writeInt(meeting.getAttendees().size());
+        for (Person attendee : meeting.getAttendees()) {
+            writeString(out, attendee.getName());
+            writeString(out, attendee.getTitle());
+        }
+    }
+
+    /**
+     * Writes the length of the UTF-8 bytes, -1 for null, followed by the bytes. Unlike
+     * {@link DataOutputStream#writeUTF(String)}, texts may be longer than 64 KB.
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static final class Entry {
+
+        private final byte[] id;
+        private final int epochDay;
+        private final long offset;
+
+        Entry(byte[] id, int epochDay, long offset){
+            this.id = id;
+            this.epochDay = epochDay;
+            this.offset = offset;
+        }
+    }
+}
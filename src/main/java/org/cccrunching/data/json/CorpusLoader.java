@@ -0,0 +1,94 @@
+package org.cccrunching.data.json;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.cccrunching.data.Meeting;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads back the meetings written by the application, either as a JSON array or as newline-delimited JSON.
+ * The file is streamed, meetings are handed over one at a time as soon as they are read.
+ */
+public class CorpusLoader {
+
+    private final TypeAdapter<Meeting> adapter;
+
+    public CorpusLoader(){
+        this(MeetingJson.gson().getAdapter(Meeting.class));
+    }
+
+    public CorpusLoader(TypeAdapter<Meeting> adapter){
+        this.adapter = adapter;
+    }
+
+    /**
+     * @return the meetings of the file, in the order of the file
+     */
+    public List<Meeting> load(Path file) throws IOException {
+        List<Meeting> meetings = new ArrayList<>();
+        load(file, meetings::add);
+        return meetings;
+    }
+
+    /**
+     * @return the number of meetings handed over
+     */
+    public int load(Path file, Consumer<Meeting> consumer) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            return load(reader, consumer);
+        }
+    }
+
+    /**
+     * Reads a JSON array of meetings, or meetings one after the other, until the end of the input
+     * @return the number of meetings handed over
+     */
+    public int load(Reader reader, Consumer<Meeting> consumer) throws IOException {
+        JsonReader in = new JsonReader(reader);
+        // newline-delimited JSON is a sequence of top level values
+        in.setLenient(true);
+        JsonToken first;
+        try {
+            first = in.peek();
+        } catch (EOFException e) {
+            // empty file, as written by a streaming run that found no meeting
+            return 0;
+        }
+        int loaded = 0;
+        if (first == JsonToken.BEGIN_ARRAY) {
+            in.beginArray();
+            while (in.hasNext()) {
+                loaded += accept(in, consumer);
+            }
+            in.endArray();
+            if (in.peek() != JsonToken.END_DOCUMENT) {
+                throw new JsonSyntaxException("Unexpected content after the meetings at " + in.getPath());
+            }
+            return loaded;
+        }
+        while (in.peek() != JsonToken.END_DOCUMENT) {
+            loaded += accept(in, consumer);
+        }
+        return loaded;
+    }
+
+    private int accept(JsonReader in, Consumer<Meeting> consumer) throws IOException {
+        Meeting meeting = adapter.read(in);
+        if (meeting == null) {
+            return 0;
+        }
+        consumer.accept(meeting);
+        return 1;
+    }
+}
@@ -0,0 +1,50 @@
+package org.cccrunching.data.json;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+/**
+ * Writes dates as <code>{"year":2017,"month":11,"day":27}</code>, the shape the reflective
+ * Gson serialization used to produce and the one expected by the search mapping.
+ * Reflection on java.time classes is not allowed anymore on recent JVMs.
+ */
+public class LocalDateTypeAdapter extends TypeAdapter<LocalDate> {
+
+    @Override
+    public void write(JsonWriter out, LocalDate date) throws IOException {
+        if (date == null){
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("year").value(date.getYear());
+        out.name("month").value(date.getMonthValue());
+        out.name("day").value(date.getDayOfMonth());
+        out.endObject();
+    }
+
+    @Override
+    public LocalDate read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL){
+            in.nextNull();
+            return null;
+        }
+        int year = 0, month = 1, day = 1;
+        in.beginObject();
+        while (in.hasNext()){
+            switch (in.nextName()){
+                case "year":  year  = in.nextInt(); break;
+                case "month": month = in.nextInt(); break;
+                case "day":   day   = in.nextInt(); break;
+                default: in.skipValue();
+            }
+        }
+        in.endObject();
+        return LocalDate.of(year, month, day);
+    }
+}
@@ -0,0 +1,58 @@
+package org.cccrunching.data.json;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.cccrunching.data.MeetingItem;
+
+import java.io.IOException;
+
+/**
+ * Writes items with the fields the reflective Gson serialization used to produce,
+ * <code>unanimousVote</code> being left out when unknown, whatever the internal layout of {@link MeetingItem}.
+ */
+public class MeetingItemTypeAdapter extends TypeAdapter<MeetingItem> {
+
+    @Override
+    public void write(JsonWriter out, MeetingItem item) throws IOException {
+        if (item == null){
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        // null values are skipped, unless the Gson instance serializes nulls
+        out.name("discussion").value(item.getDiscussion());
+        out.name("title").value(item.getTitle());
+        out.name("decision").value(item.getDecision());
+        out.name("unanimousVote").value(item.isUnanimousVote().orElse(null));
+        out.endObject();
+    }
+
+    @Override
+    public MeetingItem read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL){
+            in.nextNull();
+            return null;
+        }
+        String discussion = null, title = null, decision = null;
+        Boolean unanimousVote = null;
+        in.beginObject();
+        while (in.hasNext()){
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL){
+                in.nextNull();
+                continue;
+            }
+            switch (name){
+                case "discussion":    discussion    = in.nextString(); break;
+                case "title":         title         = in.nextString(); break;
+                case "decision":      decision      = in.nextString(); break;
+                case "unanimousVote": unanimousVote = in.nextBoolean(); break;
+                default: in.skipValue();
+            }
+        }
+        in.endObject();
+        return new MeetingItem(title, discussion, decision, unanimousVote);
+    }
+}
@@ -0,0 +1,33 @@
+package org.cccrunching.data.json;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.cccrunching.data.Meeting;
+import org.cccrunching.data.MeetingItem;
+import org.cccrunching.data.Person;
+
+import java.time.LocalDate;
+
+/**
+ * Single place where the Gson configuration used to read and write meetings is defined.
+ * The returned instances are thread-safe and meant to be shared.
+ */
+public final class MeetingJson {
+
+    private static final Gson GSON = newBuilder().create();
+
+    private MeetingJson(){
+    }
+
+    public static Gson gson(){
+        return GSON;
+    }
+
+    public static GsonBuilder newBuilder(){
+        return new GsonBuilder()
+                .registerTypeAdapter(LocalDate.class, new LocalDateTypeAdapter())
+                .registerTypeAdapter(MeetingItem.class, new MeetingItemTypeAdapter())
+                .registerTypeAdapter(Person.class, new PersonTypeAdapter())
+                .registerTypeAdapter(Meeting.class, new MeetingTypeAdapter());
+    }
+}
@@ -0,0 +1,114 @@
+package org.cccrunching.data.json;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.cccrunching.data.Meeting;
+import org.cccrunching.data.MeetingItem;
+import org.cccrunching.data.Person;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes meetings with the fields, in the order, the reflective Gson serialization used to produce, and reads
+ * them back through a {@link Meeting.Builder} so that the id written is kept. Items, attendees and dates
+ * go through their own adapters.
+ */
+public class MeetingTypeAdapter extends TypeAdapter<Meeting> {
+
+    private final TypeAdapter<MeetingItem> itemAdapter;
+    private final TypeAdapter<Person> personAdapter;
+    private final TypeAdapter<LocalDate> dateAdapter;
+
+    public MeetingTypeAdapter(){
+        this(new MeetingItemTypeAdapter(), new PersonTypeAdapter(), new LocalDateTypeAdapter());
+    }
+
+    public MeetingTypeAdapter(TypeAdapter<MeetingItem> itemAdapter, TypeAdapter<Person> personAdapter, TypeAdapter<LocalDate> dateAdapter){
+        this.itemAdapter = itemAdapter;
+        this.personAdapter = personAdapter;
+        this.dateAdapter = dateAdapter;
+    }
+
+    @Override
+    public void write(JsonWriter out, Meeting meeting) throws IOException {
+        if (meeting == null){
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("items").beginArray();
+        for (MeetingItem item : meeting.getItems()){
+            itemAdapter.write(out, item);
+        }
+        out.endArray();
+        // null values are skipped, unless the Gson instance serializes nulls
+        out.name("city").value(meeting.getCity().orElse(null));
+        out.name("title").value(meeting.getTitle());
+        out.name("meetingDate");
+        dateAdapter.write(out, meeting.getMeetingDate().orElse(null));
+        out.name("id").value(meeting.getId());
+        out.name("attendees").beginArray();
+        for (Person attendee : meeting.getAttendees()){
+            personAdapter.write(out, attendee);
+        }
+        out.endArray();
+        out.endObject();
+    }
+
+    @Override
+    public Meeting read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL){
+            in.nextNull();
+            return null;
+        }
+        String path = in.getPath();
+        String city = null, title = null, id = null;
+        LocalDate meetingDate = null;
+        List<MeetingItem> items = new ArrayList<>();
+        List<Person> attendees = new ArrayList<>();
+        in.beginObject();
+        while (in.hasNext()){
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL){
+                in.nextNull();
+                continue;
+            }
+            switch (name){
+                case "items":       readArray(in, itemAdapter, items); break;
+                case "city":        city        = in.nextString(); break;
+                case "title":       title       = in.nextString(); break;
+                case "meetingDate": meetingDate = dateAdapter.read(in); break;
+                case "id":          id          = in.nextString(); break;
+                case "attendees":   readArray(in, personAdapter, attendees); break;
+                default: in.skipValue();
+            }
+        }
+        in.endObject();
+        if (title == null){
+            throw new JsonSyntaxException("Meeting without title at " + path);
+        }
+        // meetings written without id get the derived one
+        return Meeting.builder(city, title, meetingDate)
+                .id(id)
+                .addItems(items)
+                .addAttendees(attendees)
+                .build();
+    }
+
+    private static <T> void readArray(JsonReader in, TypeAdapter<T> adapter, List<T> values) throws IOException {
+        in.beginArray();
+        while (in.hasNext()){
+            T value = adapter.read(in);
+            if (value != null){
+                values.add(value);
+            }
+        }
+        in.endArray();
+    }
+}
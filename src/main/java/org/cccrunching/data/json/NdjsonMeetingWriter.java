@@ -0,0 +1,59 @@
+package org.cccrunching.data.json;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import org.cccrunching.data.Meeting;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Writes meetings as newline-delimited JSON, one meeting per line, as soon as they are handed over.
+ * Meetings are not kept in memory once written. It is safe to feed the writer from several threads,
+ * lines are then written in the order the meetings are received.
+ */
+public class NdjsonMeetingWriter implements Consumer<Meeting>, Closeable {
+
+    private final Gson gson;
+    private final Writer writer;
+    private final JsonWriter jsonWriter;
+    private int written;
+
+    public NdjsonMeetingWriter(Path output) throws IOException {
+        this(Files.newBufferedWriter(output), MeetingJson.gson());
+    }
+
+    public NdjsonMeetingWriter(Writer writer, Gson gson){
+        this.gson = gson;
+        this.writer = writer;
+        this.jsonWriter = new JsonWriter(writer);
+        // several top level values are written one after the other
+        this.jsonWriter.setLenient(true);
+    }
+
+    @Override
+    public synchronized void accept(Meeting meeting) {
+        try {
+            gson.toJson(meeting, Meeting.class, jsonWriter);
+            writer.write('\n');
+            written++;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write meeting " + meeting.getId(), e);
+        }
+    }
+
+    public synchronized int getWritten() {
+        return written;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        // the JsonWriter holds no buffer, and refuses to close when no meeting was written
+        writer.close();
+    }
+}
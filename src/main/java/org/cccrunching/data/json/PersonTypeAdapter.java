@@ -0,0 +1,52 @@
+package org.cccrunching.data.json;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.cccrunching.data.Person;
+
+import java.io.IOException;
+
+/**
+ * Writes persons as <code>{"name":"J.GOBERT"}</code>, with their title when known, and interns
+ * the persons read in the global {@link org.cccrunching.data.PersonDictionary}.
+ */
+public class PersonTypeAdapter extends TypeAdapter<Person> {
+
+    @Override
+    public void write(JsonWriter out, Person person) throws IOException {
+        if (person == null){
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("name").value(person.getName());
+        out.name("title").value(person.getTitle());
+        out.endObject();
+    }
+
+    @Override
+    public Person read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL){
+            in.nextNull();
+            return null;
+        }
+        String name = null, title = null;
+        in.beginObject();
+        while (in.hasNext()){
+            String field = in.nextName();
+            if (in.peek() == JsonToken.NULL){
+                in.nextNull();
+                continue;
+            }
+            switch (field){
+                case "name":  name  = in.nextString(); break;
+                case "title": title = in.nextString(); break;
+                default: in.skipValue();
+            }
+        }
+        in.endObject();
+        return Person.of(name, title);
+    }
+}
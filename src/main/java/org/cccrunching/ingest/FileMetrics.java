@@ -0,0 +1,142 @@
+package org.cccrunching.ingest;
+
+import org.cccrunching.parser.ExtractionFailedException;
+
+import java.nio.file.Path;
+
+/**
+ * Measures of the ingestion of a single file, filled in by the worker thread handling it
+ * before being handed over to {@link IngestionMetrics#record(FileMetrics)}.
+ */
+public class FileMetrics {
+
+    public enum Outcome {
+        /** extracted and parsed in this run */
+        PARSED,
+        /** unchanged since a previous run, taken from the manifest */
+        REUSED,
+        /** extracted, but not recognized as meeting minutes */
+        UNPARSEABLE,
+        /** failed with an unexpected exception */
+        FAILED,
+        /** extraction failed or timed out in an isolated worker, the file was quarantined */
+        QUARANTINED
+    }
+
+    public enum Stage { EXTRACTION, PARSE }
+
+    private final String file;
+    private final long pdfBytes;
+    private Outcome outcome;
+    private double extractionMillis;
+    private double parseMillis;
+    private int characters;
+    private int items;
+    private int attendees;
+    private Stage failedStage;
+    private String failure;
+    // exact durations for the latency percentiles, negative when the stage did not complete
+    private transient long extractionNanos = -1;
+    private transient long parseNanos = -1;
+
+    FileMetrics(Path file, long pdfBytes){
+        this.file = file.toString();
+        this.pdfBytes = pdfBytes;
+    }
+
+    void reused(){
+        outcome = Outcome.REUSED;
+    }
+
+    void extracted(long nanos, int characters){
+        this.extractionNanos = nanos;
+        this.extractionMillis = toMillis(nanos);
+        this.characters = characters;
+    }
+
+    void parsed(long nanos, int items, int attendees){
+        this.parseNanos = nanos;
+        this.parseMillis = toMillis(nanos);
+        this.items = items;
+        this.attendees = attendees;
+        this.outcome = Outcome.PARSED;
+    }
+
+    void unparseable(long nanos, IllegalArgumentException cause){
+        this.parseNanos = nanos;
+        this.parseMillis = toMillis(nanos);
+        this.outcome = Outcome.UNPARSEABLE;
+        this.failedStage = Stage.PARSE;
+        this.failure = cause.getClass().getName();
+    }
+
+    void failed(Stage stage, Throwable cause){
+        this.outcome = Outcome.FAILED;
+        this.failedStage = stage;
+        this.failure = cause.getClass().getName();
+    }
+
+    void quarantined(ExtractionFailedException cause){
+        this.outcome = Outcome.QUARANTINED;
+        this.failedStage = Stage.EXTRACTION;
+        this.failure = cause.getClass().getName();
+    }
+
+    static double toMillis(long nanos){
+        return nanos / 1_000_000d;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public long getPdfBytes() {
+        return pdfBytes;
+    }
+
+    public double getExtractionMillis() {
+        return extractionMillis;
+    }
+
+    public double getParseMillis() {
+        return parseMillis;
+    }
+
+    long getExtractionNanos() {
+        return extractionNanos;
+    }
+
+    long getParseNanos() {
+        return parseNanos;
+    }
+
+    public int getCharacters() {
+        return characters;
+    }
+
+    public int getItems() {
+        return items;
+    }
+
+    public int getAttendees() {
+        return attendees;
+    }
+
+    /**
+     * @return the stage that failed, null when the file did not fail or failed outside of the extraction and the parse
+     */
+    public Stage getFailedStage() {
+        return failedStage;
+    }
+
+    /**
+     * @return the class of the exception that failed the file, null when the file did not fail
+     */
+    public String getFailure() {
+        return failure;
+    }
+}
@@ -0,0 +1,180 @@
+package org.cccrunching.ingest;
+
+import com.google.common.hash.Hashing;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import org.cccrunching.data.Meeting;
+import org.cccrunching.data.json.MeetingJson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent record of the files already ingested. For every input file it keeps the
+ * hash of its content, the version of the parser and extraction settings that handled it and the file in which
+ * the parsed meeting was stored, so that unchanged files do not need to be extracted
+ * and parsed again.
+ * <p>
+ * The manifest lives in its own directory: <code>manifest.json</code> holds the entries
+ * and <code>meetings/</code> the parsed meetings, one JSON file per content hash.
+ */
+public class IngestionManifest {
+
+    private final static Logger LOG = LoggerFactory.getLogger(IngestionManifest.class);
+
+    private static final String MANIFEST_FILE = "manifest.json";
+    private static final String MEETINGS_DIRECTORY = "meetings";
+
+    public static class Entry {
+
+        private final String contentHash;
+        private final String parserVersion;
+        // null when the file could not be parsed
+        private final String meetingFile;
+
+        Entry(String contentHash, String parserVersion, String meetingFile){
+            this.contentHash = contentHash;
+            this.parserVersion = parserVersion;
+            this.meetingFile = meetingFile;
+        }
+
+        public String getContentHash() {
+            return contentHash;
+        }
+
+        public String getParserVersion() {
+            return parserVersion;
+        }
+
+        public Optional<String> getMeetingFile() {
+            return Optional.ofNullable(meetingFile);
+        }
+    }
+
+    private final Path directory;
+    private final Gson gson = MeetingJson.gson();
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private IngestionManifest(Path directory){
+        this.directory = directory;
+    }
+
+    /**
+     * Opens the manifest stored in the given directory, creating an empty one if there is none yet
+     */
+    public static IngestionManifest open(Path directory) throws IOException {
+        IngestionManifest manifest = new IngestionManifest(directory);
+        Files.createDirectories(directory.resolve(MEETINGS_DIRECTORY));
+        Path manifestFile = directory.resolve(MANIFEST_FILE);
+        if (Files.exists(manifestFile)){
+            try (BufferedReader r = Files.newBufferedReader(manifestFile)) {
+                Map<String, Entry> stored = manifest.gson.fromJson(r, new TypeToken<Map<String, Entry>>(){}.getType());
+                if (stored != null) {
+                    manifest.entries.putAll(stored);
+                }
+            }
+            LOG.info("Loaded ingestion manifest {} with {} entries", manifestFile, manifest.entries.size());
+        }
+        return manifest;
+    }
+
+    public static String contentHash(Path file) throws IOException {
+        return com.google.common.io.Files.asByteSource(file.toFile()).hash(Hashing.sha256()).toString();
+    }
+
+    /**
+     * @return the entry of the file if it was ingested with the same content and version, the caller's choice
+     * of what the version covers
+     */
+    public Optional<Entry> lookup(Path file, String contentHash, String parserVersion){
+        Entry entry = entries.get(key(file));
+        if (entry != null && entry.contentHash.equals(contentHash) && entry.parserVersion.equals(parserVersion)){
+            return Optional.of(entry);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @return the meeting stored for the entry, empty if the file could not be parsed
+     * @throws IOException if the stored meeting is missing or unreadable
+     */
+    public Optional<Meeting> load(Entry entry) throws IOException {
+        if (!entry.getMeetingFile().isPresent()){
+            return Optional.empty();
+        }
+        Path meetingFile = directory.resolve(MEETINGS_DIRECTORY).resolve(entry.meetingFile);
+        try (BufferedReader r = Files.newBufferedReader(meetingFile)) {
+            Meeting meeting = gson.fromJson(r, Meeting.class);
+            if (meeting == null){
+                throw new IOException("Empty stored meeting " + meetingFile);
+            }
+            return Optional.of(meeting);
+        } catch (JsonParseException e) {
+            throw new IOException("Unreadable stored meeting " + meetingFile, e);
+        }
+    }
+
+    /**
+     * Stores the outcome of the ingestion of a file
+     * @param meeting the parsed meeting, or null if the file could not be parsed
+     */
+    public void record(Path file, String contentHash, String parserVersion, Meeting meeting) throws IOException {
+        String meetingFile = null;
+        if (meeting != null){
+            meetingFile = contentHash + ".json";
+            Path target = directory.resolve(MEETINGS_DIRECTORY).resolve(meetingFile);
+            Path tmp = Files.createTempFile(target.getParent(), contentHash, ".tmp");
+            try (BufferedWriter w = Files.newBufferedWriter(tmp)) {
+                gson.toJson(meeting, w);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        entries.put(key(file), new Entry(contentHash, parserVersion, meetingFile));
+    }
+
+    /**
+     * Forgets the files that are not part of the input anymore
+     */
+    public void retainOnly(Collection<Path> files){
+        Set<String> keys = new HashSet<>();
+        files.forEach(f -> keys.add(key(f)));
+        entries.keySet().retainAll(keys);
+    }
+
+    /**
+     * Writes the manifest to disk, replacing the previous version atomically
+     */
+    public void save() throws IOException {
+        Path target = directory.resolve(MANIFEST_FILE);
+        Path tmp = Files.createTempFile(directory, MANIFEST_FILE, ".tmp");
+        try (BufferedWriter w = Files.newBufferedWriter(tmp)) {
+            gson.toJson(new TreeMap<>(entries), w);
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        LOG.info("Saved ingestion manifest {} with {} entries", target, entries.size());
+        deleteUnreferencedMeetings();
+    }
+
+    private void deleteUnreferencedMeetings() throws IOException {
+        Set<String> referenced = new HashSet<>();
+        entries.values().forEach(e -> e.getMeetingFile().ifPresent(referenced::add));
+        try (DirectoryStream<Path> stored = Files.newDirectoryStream(directory.resolve(MEETINGS_DIRECTORY))) {
+            for (Path meetingFile : stored) {
+                if (!referenced.contains(meetingFile.getFileName().toString())) {
+                    Files.delete(meetingFile);
+                }
+            }
+        }
+    }
+
+    private static String key(Path file){
+        return file.getFileName().toString();
+    }
+}
@@ -0,0 +1,247 @@
+package org.cccrunching.ingest;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Registry of the measures of an ingestion run: one {@link FileMetrics} per file, totals,
+ * failures by exception type and latency percentiles per stage.
+ * Instances are thread-safe, files are recorded from the worker threads.
+ */
+public class IngestionMetrics implements IngestionMetricsMXBean {
+
+    private final static Logger LOG = LoggerFactory.getLogger(IngestionMetrics.class);
+
+    public static final String OBJECT_NAME = "org.cccrunching:type=IngestionMetrics";
+
+    private final Instant startedAt = Instant.now();
+    private final long startNanos = System.nanoTime();
+    private final List<FileMetrics> files = new ArrayList<>();
+    private final Map<String, Integer> failuresByType = new TreeMap<>();
+    private final Map<FileMetrics.Stage, LatencyRecorder> latencies = new EnumMap<>(FileMetrics.Stage.class);
+    private int parsed;
+    private int reused;
+    private int failed;
+    private long pdfBytes;
+    private long characters;
+    private long items;
+    private long attendees;
+
+    public IngestionMetrics(){
+        for (FileMetrics.Stage stage : FileMetrics.Stage.values()) {
+            latencies.put(stage, new LatencyRecorder());
+        }
+    }
+
+    public synchronized void record(FileMetrics file){
+        files.add(file);
+        pdfBytes += file.getPdfBytes();
+        if (file.getOutcome() == FileMetrics.Outcome.REUSED) {
+            reused++;
+            return;
+        }
+        characters += file.getCharacters();
+        items += file.getItems();
+        attendees += file.getAttendees();
+        if (file.getOutcome() == FileMetrics.Outcome.PARSED) {
+            parsed++;
+        } else {
+            failed++;
+            failuresByType.merge(file.getFailure(), 1, Integer::sum);
+        }
+        if (file.getExtractionNanos() >= 0) {
+            latencies.get(FileMetrics.Stage.EXTRACTION).record(file.getExtractionNanos());
+        }
+        if (file.getParseNanos() >= 0) {
+            latencies.get(FileMetrics.Stage.PARSE).record(file.getParseNanos());
+        }
+    }
+
+    public LatencyRecorder getLatency(FileMetrics.Stage stage){
+        return latencies.get(stage);
+    }
+
+    /**
+     * @return the measures of every file recorded so far, the slowest first
+     */
+    public synchronized List<FileMetrics> getFiles(){
+        List<FileMetrics> sorted = new ArrayList<>(files);
+        sorted.sort(Comparator.comparingDouble((FileMetrics f) -> f.getExtractionMillis() + f.getParseMillis()).reversed());
+        return sorted;
+    }
+
+    @Override
+    public synchronized int getFilesProcessed() {
+        return files.size();
+    }
+
+    @Override
+    public synchronized int getFilesParsed() {
+        return parsed;
+    }
+
+    @Override
+    public synchronized int getFilesReused() {
+        return reused;
+    }
+
+    @Override
+    public synchronized int getFilesFailed() {
+        return failed;
+    }
+
+    @Override
+    public synchronized Map<String, Integer> getFailuresByType() {
+        return new TreeMap<>(failuresByType);
+    }
+
+    @Override
+    public synchronized long getPdfBytes() {
+        return pdfBytes;
+    }
+
+    @Override
+    public synchronized long getCharacters() {
+        return characters;
+    }
+
+    @Override
+    public synchronized long getItems() {
+        return items;
+    }
+
+    @Override
+    public synchronized long getAttendees() {
+        return attendees;
+    }
+
+    @Override
+    public double getExtractionMillisP50() {
+        return percentileMillis(FileMetrics.Stage.EXTRACTION, 50);
+    }
+
+    @Override
+    public double getExtractionMillisP95() {
+        return percentileMillis(FileMetrics.Stage.EXTRACTION, 95);
+    }
+
+    @Override
+    public double getExtractionMillisP99() {
+        return percentileMillis(FileMetrics.Stage.EXTRACTION, 99);
+    }
+
+    @Override
+    public double getParseMillisP50() {
+        return percentileMillis(FileMetrics.Stage.PARSE, 50);
+    }
+
+    @Override
+    public double getParseMillisP95() {
+        return percentileMillis(FileMetrics.Stage.PARSE, 95);
+    }
+
+    @Override
+    public double getParseMillisP99() {
+        return percentileMillis(FileMetrics.Stage.PARSE, 99);
+    }
+
+    private double percentileMillis(FileMetrics.Stage stage, double percentile){
+        return FileMetrics.toMillis(latencies.get(stage).percentile(percentile));
+    }
+
+    /**
+     * Registers these metrics in the platform MBean server under {@link #OBJECT_NAME},
+     * replacing the metrics of a previous run of the same JVM
+     */
+    public void registerMBean(){
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+            LOG.info("Ingestion metrics available over JMX as {}", OBJECT_NAME);
+        } catch (JMException e) {
+            throw new RuntimeException("Unable to register the ingestion metrics MBean", e);
+        }
+    }
+
+    /**
+     * Writes the JSON report of the run: totals, failures, percentiles per stage and the measures of every file
+     */
+    public void writeReport(Path report) throws IOException {
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        try (BufferedWriter w = Files.newBufferedWriter(report)) {
+            gson.toJson(new Report(this), w);
+        }
+        LOG.info("Stored ingestion metrics of {} files in {}", getFilesProcessed(), report);
+    }
+
+    private static class StageReport {
+
+        private final int count;
+        private final double totalMillis;
+        private final double p50Millis;
+        private final double p95Millis;
+        private final double p99Millis;
+        private final double maxMillis;
+
+        StageReport(LatencyRecorder latency){
+            this.count = latency.getCount();
+            this.totalMillis = FileMetrics.toMillis(latency.getTotalNanos());
+            this.p50Millis = FileMetrics.toMillis(latency.percentile(50));
+            this.p95Millis = FileMetrics.toMillis(latency.percentile(95));
+            this.p99Millis = FileMetrics.toMillis(latency.percentile(99));
+            this.maxMillis = FileMetrics.toMillis(latency.getMaxNanos());
+        }
+    }
+
+    private static class Report {
+
+        private final String startedAt;
+        private final double wallTimeMillis;
+        private final int files;
+        private final int parsed;
+        private final int reused;
+        private final int failed;
+        private final Map<String, Integer> failuresByType;
+        private final long pdfBytes;
+        private final long characters;
+        private final long items;
+        private final long attendees;
+        private final Map<FileMetrics.Stage, StageReport> stages = new EnumMap<>(FileMetrics.Stage.class);
+        private final List<FileMetrics> fileMetrics;
+
+        Report(IngestionMetrics metrics){
+            synchronized (metrics) {
+                this.startedAt = metrics.startedAt.toString();
+                this.wallTimeMillis = FileMetrics.toMillis(System.nanoTime() - metrics.startNanos);
+                this.files = metrics.files.size();
+                this.parsed = metrics.parsed;
+                this.reused = metrics.reused;
+                this.failed = metrics.failed;
+                this.failuresByType = new TreeMap<>(metrics.failuresByType);
+                this.pdfBytes = metrics.pdfBytes;
+                this.characters = metrics.characters;
+                this.items = metrics.items;
+                this.attendees = metrics.attendees;
+                metrics.latencies.forEach((stage, latency) -> stages.put(stage, new StageReport(latency)));
+                this.fileMetrics = metrics.getFiles();
+            }
+        }
+    }
+}
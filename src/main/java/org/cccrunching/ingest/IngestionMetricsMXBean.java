@@ -0,0 +1,42 @@
+package org.cccrunching.ingest;
+
+import java.util.Map;
+
+/**
+ * Live view of the {@link IngestionMetrics} of a run, exposed over JMX
+ */
+public interface IngestionMetricsMXBean {
+
+    int getFilesProcessed();
+
+    int getFilesParsed();
+
+    int getFilesReused();
+
+    int getFilesFailed();
+
+    /**
+     * @return the number of failed or unparseable files by exception class
+     */
+    Map<String, Integer> getFailuresByType();
+
+    long getPdfBytes();
+
+    long getCharacters();
+
+    long getItems();
+
+    long getAttendees();
+
+    double getExtractionMillisP50();
+
+    double getExtractionMillisP95();
+
+    double getExtractionMillisP99();
+
+    double getParseMillisP50();
+
+    double getParseMillisP95();
+
+    double getParseMillisP99();
+}
@@ -0,0 +1,55 @@
+package org.cccrunching.ingest;
+
+import java.util.Arrays;
+
+/**
+ * Keeps every latency sample of a stage to compute exact percentiles. A run handles at most
+ * a few thousand files, so the samples are cheaper to keep than to approximate.
+ * Instances are thread-safe.
+ */
+public class LatencyRecorder {
+
+    private long[] samples = new long[64];
+    private int count;
+    private long total;
+    private long max;
+
+    public synchronized void record(long nanos){
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+        total += nanos;
+        max = Math.max(max, nanos);
+    }
+
+    public synchronized int getCount() {
+        return count;
+    }
+
+    public synchronized long getTotalNanos() {
+        return total;
+    }
+
+    public synchronized long getMaxNanos() {
+        return max;
+    }
+
+    /**
+     * @param percentile between 0 (exclusive) and 100 (inclusive)
+     * @return the nearest-rank percentile of the samples, 0 when nothing was recorded
+     */
+    public synchronized long percentile(double percentile){
+        // written so that NaN is rejected as well
+        if (!(percentile > 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Percentile must be in ]0, 100], got " + percentile);
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100 * count);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+}
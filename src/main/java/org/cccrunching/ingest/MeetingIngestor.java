@@ -0,0 +1,270 @@
+package org.cccrunching.ingest;
+
+import org.cccrunching.data.Meeting;
+import org.cccrunching.data.TextStore;
+import org.cccrunching.parser.ExtractionFailedException;
+import org.cccrunching.parser.MeetingParser;
+import org.cccrunching.parser.MeetingParserRegistry;
+import org.cccrunching.parser.PDFExtractor;
+import org.cccrunching.parser.StreamingMeetingParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Extracts and parses all the meeting minutes found in a directory,
+ * spreading the files over a fixed pool of worker threads.
+ */
+public class MeetingIngestor {
+
+    private final static Logger LOG = LoggerFactory.getLogger(MeetingIngestor.class);
+
+    public static final Comparator<Meeting> BY_MEETING_DATE = Comparator.comparing(m -> m.getMeetingDate().orElse(LocalDate.MIN));
+
+    private final int parallelism;
+    private final PDFExtractor pdfExtractor;
+    private final MeetingParser meetingParser;
+    private final IngestionManifest manifest;
+    // version of the results recorded in the manifest, the same file gives another meeting if either changes
+    private final String manifestVersion;
+    private final IngestionMetrics metrics = new IngestionMetrics();
+
+    public MeetingIngestor(){
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public MeetingIngestor(int parallelism){
+        this(parallelism, new PDFExtractor(), MeetingParserRegistry.load());
+    }
+
+    public MeetingIngestor(int parallelism, PDFExtractor pdfExtractor, MeetingParser meetingParser){
+        this(parallelism, pdfExtractor, meetingParser, null);
+    }
+
+    /**
+     * @param parallelism number of files processed concurrently, 1 means sequential processing
+     * @param pdfExtractor extractor shared by all the worker threads
+     * @param meetingParser parser shared by all the worker threads, it must be stateless
+     * @param manifest manifest of the previous runs, null to always process every file
+     */
+    public MeetingIngestor(int parallelism, PDFExtractor pdfExtractor, MeetingParser meetingParser, IngestionManifest manifest){
+        if (parallelism < 1){
+            throw new IllegalArgumentException("Parallelism must be at least 1, got "+parallelism);
+        }
+        this.parallelism = parallelism;
+        this.pdfExtractor = pdfExtractor;
+        this.meetingParser = meetingParser;
+        this.manifest = manifest;
+        this.manifestVersion = meetingParser.getVersion() + "+" + pdfExtractor.getProfileFingerprint();
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @return the measures of all the files ingested by this ingestor
+     */
+    public IngestionMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Processes every regular file of the directory. Files that cannot be parsed as meeting
+     * minutes, or that isolated extraction workers failed on, are logged and skipped.
+     * @return the parsed meetings, sorted by meeting date
+     */
+    public List<Meeting> ingest(Path directory) throws IOException {
+        return ingest(directory, (TextStore) null);
+    }
+
+    /**
+     * Same as {@link #ingest(Path)}, the texts of the items being moved to the store as soon as each meeting
+     * is parsed, so that the whole corpus is never held uncompressed.
+     * @param texts store of the discussions and decisions of the items, null to keep them as Strings
+     */
+    public List<Meeting> ingest(Path directory, TextStore texts) throws IOException {
+        FileTask<Optional<Meeting>> task = texts == null ? this::ingestFile : file -> ingestFile(file).map(m -> m.compact(texts));
+        // collecting in submission order keeps the result identical to a sequential run
+        List<Meeting> meetings = new ArrayList<>();
+        for (Optional<Meeting> meeting : processAll(directory, task)) {
+            meeting.ifPresent(meetings::add);
+        }
+        meetings.sort(BY_MEETING_DATE);
+        return meetings;
+    }
+
+    /**
+     * Processes every regular file of the directory, handing over each meeting as soon as it is parsed
+     * instead of keeping them all in memory.
+     * @param consumer called from the worker threads in the order the files complete, it must be thread-safe
+     */
+    public void ingest(Path directory, Consumer<Meeting> consumer) throws IOException {
+        processAll(directory, file -> {
+            ingestFile(file).ifPresent(consumer);
+            return null;
+        });
+    }
+
+    private interface FileTask<T> {
+        T process(Path file) throws IOException;
+    }
+
+    private <T> List<T> processAll(Path directory, FileTask<T> task) throws IOException {
+        List<Path> files = listFiles(directory);
+        LOG.info("Processing {} files from {} with {} threads", files.size(), directory, parallelism);
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            List<Future<T>> futures = new ArrayList<>(files.size());
+            for (Path file : files) {
+                futures.add(executor.submit(() -> task.process(file)));
+            }
+            List<T> results = new ArrayList<>(files.size());
+            for (Future<T> future : futures) {
+                results.add(await(future));
+            }
+            if (manifest != null) {
+                manifest.retainOnly(files);
+                manifest.save();
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    Optional<Meeting> ingestFile(Path file) throws IOException {
+        FileMetrics fileMetrics = new FileMetrics(file, Files.size(file));
+        try {
+            if (manifest == null) {
+                return parseFile(file, fileMetrics);
+            }
+            String contentHash = IngestionManifest.contentHash(file);
+            Optional<IngestionManifest.Entry> entry = manifest.lookup(file, contentHash, manifestVersion);
+            if (entry.isPresent()) {
+                try {
+                    Optional<Meeting> reused = manifest.load(entry.get());
+                    LOG.debug("Reusing the result of a previous run for unchanged file {}", file);
+                    fileMetrics.reused();
+                    return reused;
+                } catch (IOException e) {
+                    // parsed again below, which records the entry anew
+                    LOG.warn("Parsing {} again, the meeting stored by a previous run cannot be loaded", file, e);
+                }
+            }
+            Optional<Meeting> meeting = parseFile(file, fileMetrics);
+            manifest.record(file, contentHash, manifestVersion, meeting.orElse(null));
+            return meeting;
+        } catch (ExtractionFailedException e) {
+            // left out of the manifest, the file is tried again on the next run
+            fileMetrics.quarantined(e);
+            LOG.warn("Skipping {} because its extraction failed in an isolated worker", file);
+            return Optional.empty();
+        } catch (IOException | RuntimeException | Error e) {
+            if (fileMetrics.getOutcome() == null) {
+                fileMetrics.failed(null, e);
+            }
+            throw e;
+        } finally {
+            metrics.record(fileMetrics);
+        }
+    }
+
+    private Optional<Meeting> parseFile(Path file, FileMetrics fileMetrics){
+        LOG.info("Parsing meeting information from {}", file);
+        if (meetingParser instanceof StreamingMeetingParser && !pdfExtractor.hasCache()) {
+            return streamFile(file, (StreamingMeetingParser) meetingParser, fileMetrics);
+        }
+        long start = System.nanoTime();
+        String text;
+        try {
+            text = pdfExtractor.pdfAsText(file.toFile());
+        } catch (RuntimeException e) {
+            fileMetrics.failed(FileMetrics.Stage.EXTRACTION, e);
+            throw e;
+        }
+        fileMetrics.extracted(System.nanoTime() - start, text.length());
+        return parse(file, fileMetrics, text.length(), () -> meetingParser.parse(text));
+    }
+
+    /**
+     * Parses the lines of the file as they are extracted, the whole text is never held in memory.
+     * Most of the parsing is then counted in the extraction time, the parse stage only completes the meeting.
+     */
+    private Optional<Meeting> streamFile(Path file, StreamingMeetingParser parser, FileMetrics fileMetrics){
+        long start = System.nanoTime();
+        StreamingMeetingParser.Session session = parser.open(null);
+        long characters;
+        try {
+            characters = pdfExtractor.pdfAsLines(file.toFile(), session);
+        } catch (RuntimeException e) {
+            fileMetrics.failed(FileMetrics.Stage.EXTRACTION, e);
+            throw e;
+        }
+        fileMetrics.extracted(System.nanoTime() - start, (int) characters);
+        return parse(file, fileMetrics, (int) characters, session::finish);
+    }
+
+    private Optional<Meeting> parse(Path file, FileMetrics fileMetrics, int characters, Supplier<Meeting> parsing){
+        MeetingParseEvent event = new MeetingParseEvent();
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            Meeting meeting = parsing.get();
+            fileMetrics.parsed(System.nanoTime() - start, meeting.getItems().size(), meeting.getAttendees().size());
+            return Optional.of(meeting);
+        } catch (IllegalArgumentException e){
+            fileMetrics.unparseable(System.nanoTime() - start, e);
+            LOG.warn("Skipping {} because it was not parseable", file);
+            LOG.warn("Exception that failed the parsing", e);
+            return Optional.empty();
+        } catch (RuntimeException e) {
+            fileMetrics.failed(FileMetrics.Stage.PARSE, e);
+            throw e;
+        } finally {
+            if (event.shouldCommit()) {
+                event.file = file.getFileName().toString();
+                event.parserVersion = meetingParser.getVersion();
+                event.characters = characters;
+                event.items = fileMetrics.getItems();
+                event.attendees = fileMetrics.getAttendees();
+                event.outcome = String.valueOf(fileMetrics.getOutcome());
+                event.commit();
+            }
+        }
+    }
+
+    private static List<Path> listFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+    }
+
+    private static <T> T await(Future<T> future){
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the ingestion of a file", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.cccrunching.ingest;
+
+import jdk.jfr.*;
+
+/**
+ * Flight recorder event covering the parsing of the text extracted from one file
+ */
+@Name("org.cccrunching.MeetingParse")
+@Label("Meeting Parse")
+@Category({"CCCrunching", "Ingestion"})
+@Description("Parsing of the extracted text of a file into a meeting")
+class MeetingParseEvent extends Event {
+
+    @Label("File")
+    String file;
+
+    @Label("Parser Version")
+    String parserVersion;
+
+    @Label("Characters")
+    int characters;
+
+    @Label("Items")
+    int items;
+
+    @Label("Attendees")
+    int attendees;
+
+    @Label("Outcome")
+    String outcome;
+}
@@ -0,0 +1,59 @@
+package org.cccrunching.parser;
+
+import com.google.common.hash.Hashing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Directory of {@link ItemAnnotations} keyed by the hash of the annotated text and of the annotator
+ * configuration, so that a text is only annotated again when it or the pipeline changes.
+ * Instances are thread-safe.
+ */
+public class AnnotationCache {
+
+    private final static Logger LOG = LoggerFactory.getLogger(AnnotationCache.class);
+
+    private static final String SUFFIX = ".ann.gz";
+
+    private final Path directory;
+
+    public AnnotationCache(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }
+
+    public static String key(String configuration, String text){
+        return Hashing.sha256().newHasher()
+                .putString(configuration, StandardCharsets.UTF_8)
+                .putByte((byte) 0)
+                .putString(text, StandardCharsets.UTF_8)
+                .hash().toString();
+    }
+
+    public Optional<ItemAnnotations> get(String key){
+        Path entry = directory.resolve(key + SUFFIX);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(entry))))) {
+            return Optional.of(ItemAnnotations.readFrom(in));
+        } catch (NoSuchFileException e){
+            return Optional.empty();
+        } catch (IOException e){
+            LOG.warn("Ignoring unreadable annotation cache entry {}", entry, e);
+            return Optional.empty();
+        }
+    }
+
+    public void put(String key, ItemAnnotations annotations) throws IOException {
+        Path entry = directory.resolve(key + SUFFIX);
+        Path tmp = Files.createTempFile(directory, key, ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tmp))))) {
+            annotations.writeTo(out);
+        }
+        Files.move(tmp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
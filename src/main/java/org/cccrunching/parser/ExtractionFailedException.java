@@ -0,0 +1,32 @@
+package org.cccrunching.parser;
+
+import java.io.File;
+
+/**
+ * Thrown by an {@link ExtractionWorkerPool} when a worker could not extract the text of a file, because the
+ * extraction failed, ran out of time or out of memory. The file has been quarantined, other files are unaffected.
+ */
+public class ExtractionFailedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final File file;
+    private final boolean timeout;
+
+    ExtractionFailedException(File file, String reason, boolean timeout){
+        super("Extraction of " + file + " failed: " + reason);
+        this.file = file;
+        this.timeout = timeout;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return whether the worker was killed because the extraction exceeded its time budget
+     */
+    public boolean isTimeout() {
+        return timeout;
+    }
+}
@@ -0,0 +1,111 @@
+package org.cccrunching.parser;
+
+import com.google.common.hash.Hashing;
+import org.apache.tika.parser.pdf.PDFParserConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+
+/**
+ * Settings of the Tika PDF parser behind a {@link PDFExtractor}, read once when the extractor is created.
+ * <p>
+ * The default text-only profile skips everything the ingestion throws away: annotations, bookmarks,
+ * form fields, inline images, actions and OCR. {@link #tikaDefaults()} keeps the parser defaults.
+ * Both can sort the text by position on the page and apply a unicode normalization form.
+ */
+public class ExtractionProfile {
+
+    private boolean textOnly = true;
+    private boolean sortByPosition = false;
+    private Normalizer.Form normalization;
+
+    /**
+     * Profile used for the minutes ingestion
+     */
+    public static ExtractionProfile textOnly(){
+        return new ExtractionProfile();
+    }
+
+    /**
+     * Profile leaving the Tika parser settings untouched
+     */
+    public static ExtractionProfile tikaDefaults(){
+        ExtractionProfile profile = new ExtractionProfile();
+        profile.textOnly = false;
+        return profile;
+    }
+
+    /**
+     * Whether the text is sorted by position on the page instead of following the content stream order
+     */
+    public ExtractionProfile sortByPosition(boolean sortByPosition){
+        this.sortByPosition = sortByPosition;
+        return this;
+    }
+
+    /**
+     * Unicode normalization form applied to the text, null to keep the text as extracted
+     */
+    public ExtractionProfile normalization(Normalizer.Form normalization){
+        this.normalization = normalization;
+        return this;
+    }
+
+    PDFParserConfig parserConfig(){
+        PDFParserConfig config = new PDFParserConfig();
+        if (textOnly) {
+            config.setExtractAnnotationText(false);
+            config.setExtractBookmarksText(false);
+            config.setExtractAcroFormContent(false);
+            config.setExtractInlineImages(false);
+            config.setExtractActions(false);
+            config.setOcrStrategy(PDFParserConfig.OCR_STRATEGY.NO_OCR);
+        }
+        config.setSortByPosition(sortByPosition);
+        return config;
+    }
+
+    String normalize(String text){
+        return normalization == null ? text : Normalizer.normalize(text, normalization);
+    }
+
+    /**
+     * Normalizes the lines before passing them on, no normalized sequence spans a line break
+     */
+    LineSink normalizing(LineSink sink){
+        if (normalization == null) {
+            return sink;
+        }
+        return (line, terminated) -> sink.line(Normalizer.normalize(line, normalization), terminated);
+    }
+
+    /**
+     * @return a short hash of the settings, part of the text cache keys
+     */
+    String fingerprint(){
+        return Hashing.murmur3_32().hashString(toArgument(), StandardCharsets.UTF_8).toString();
+    }
+
+    /**
+     * @return the settings as a single command line argument, see {@link #fromArgument(String)}
+     */
+    String toArgument(){
+        return (textOnly ? "textOnly" : "tikaDefaults") + "," + sortByPosition + "," + (normalization == null ? "" : normalization.name());
+    }
+
+    static ExtractionProfile fromArgument(String argument){
+        String[] settings = argument.split(",", -1);
+        if (settings.length != 3) {
+            throw new IllegalArgumentException("Invalid extraction profile " + argument);
+        }
+        ExtractionProfile profile = "textOnly".equals(settings[0]) ? textOnly() : tikaDefaults();
+        profile.sortByPosition(Boolean.parseBoolean(settings[1]));
+        profile.normalization(settings[2].isEmpty() ? null : Normalizer.Form.valueOf(settings[2]));
+        return profile;
+    }
+
+    @Override
+    public String toString() {
+        return "ExtractionProfile{" + toArgument() + "}";
+    }
+}
@@ -0,0 +1,67 @@
+package org.cccrunching.parser;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Main class of the child processes of an {@link ExtractionWorkerPool}, taking the extraction profile as
+ * argument. Reads the paths of the PDFs to extract from its standard input and answers on its standard
+ * output, one document at a time.
+ * <p>
+ * Protocol, all the strings being written as an int length followed by UTF-8 bytes: the worker first
+ * writes {@link #READY}, then for every path it receives it writes {@link #OK} and the text, or
+ * {@link #FAILED} and the reason. Closing its standard input stops the worker.
+ */
+public final class ExtractionWorker {
+
+    static final int READY = 0x43434352;
+    static final byte OK = 0;
+    static final byte FAILED = 1;
+
+    private ExtractionWorker(){
+    }
+
+    public static void main(String[] args) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+        // the standard output carries the protocol, anything printed by the libraries goes to the error stream
+        System.setOut(System.err);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(System.in));
+        ExtractionProfile profile = args.length > 0 ? ExtractionProfile.fromArgument(args[0]) : ExtractionProfile.textOnly();
+        PDFExtractor extractor = new PDFExtractor(null, new PDFExtractor.PageParallelism(), profile);
+        out.writeInt(READY);
+        out.flush();
+        while (true) {
+            String path;
+            try {
+                path = readString(in);
+            } catch (EOFException e) {
+                return;
+            }
+            String text;
+            try {
+                text = extractor.pdfAsText(new File(path));
+            } catch (RuntimeException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                out.writeByte(FAILED);
+                writeString(out, cause.toString());
+                out.flush();
+                continue;
+            }
+            out.writeByte(OK);
+            writeString(out, text);
+            out.flush();
+        }
+    }
+
+    static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
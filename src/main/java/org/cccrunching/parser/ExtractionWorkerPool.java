@@ -0,0 +1,299 @@
+package org.cccrunching.parser;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of child JVMs extracting the text of PDFs, so that a malformed document looping in the parser
+ * or exhausting the heap only costs a worker process instead of the whole run.
+ * <p>
+ * Every document gets a time budget, after which its worker is killed. Workers have a capped heap and
+ * exit on the first out of memory error. They are also recycled after a number of documents, to release
+ * whatever the parser leaks. A file whose extraction fails is copied to the quarantine directory,
+ * along with a ".reason" file, and reported with an {@link ExtractionFailedException}.
+ * <p>
+ * Instances are thread-safe, each calling thread gets a worker of its own, waiting for one if they are all busy.
+ */
+public class ExtractionWorkerPool implements Closeable {
+
+    private final static Logger LOG = LoggerFactory.getLogger(ExtractionWorkerPool.class);
+
+    private static final long STARTUP_TIMEOUT_MILLIS = 60_000;
+    // exit code of the JVM with -XX:+ExitOnOutOfMemoryError
+    private static final int OUT_OF_MEMORY_EXIT_CODE = 3;
+
+    public static class Settings {
+
+        private int workers = 2;
+        private int maxHeapMB = 512;
+        private long timeoutMillis = TimeUnit.MINUTES.toMillis(2);
+        private int documentsPerWorker = 100;
+        private Path quarantine;
+        private ExtractionProfile profile = ExtractionProfile.textOnly();
+
+        /**
+         * Number of worker processes, the number of documents extracted concurrently
+         */
+        public Settings workers(int workers){
+            if (workers < 1){
+                throw new IllegalArgumentException("Workers must be at least 1, got " + workers);
+            }
+            this.workers = workers;
+            return this;
+        }
+
+        /**
+         * Maximum heap of each worker process
+         */
+        public Settings maxHeapMB(int maxHeapMB){
+            this.maxHeapMB = maxHeapMB;
+            return this;
+        }
+
+        /**
+         * Time budget of a single document, once elapsed the worker is killed
+         */
+        public Settings timeout(long timeout, TimeUnit unit){
+            this.timeoutMillis = unit.toMillis(timeout);
+            return this;
+        }
+
+        /**
+         * Number of documents after which a worker process is replaced by a fresh one
+         */
+        public Settings documentsPerWorker(int documentsPerWorker){
+            if (documentsPerWorker < 1){
+                throw new IllegalArgumentException("Documents per worker must be at least 1, got " + documentsPerWorker);
+            }
+            this.documentsPerWorker = documentsPerWorker;
+            return this;
+        }
+
+        /**
+         * Directory receiving a copy of the files that could not be extracted, null to only log them
+         */
+        public Settings quarantine(Path quarantine){
+            this.quarantine = quarantine;
+            return this;
+        }
+
+        /**
+         * Settings of the PDF parser of the workers
+         */
+        public Settings profile(ExtractionProfile profile){
+            this.profile = profile;
+            return this;
+        }
+    }
+
+    private final Settings settings;
+    private final BlockingQueue<Worker> idle;
+    private final ScheduledExecutorService watchdog;
+    private final AtomicInteger started = new AtomicInteger();
+    private volatile boolean closed;
+
+    public ExtractionWorkerPool(Settings settings) throws IOException {
+        this.settings = settings;
+        if (settings.quarantine != null){
+            Files.createDirectories(settings.quarantine);
+        }
+        this.idle = new ArrayBlockingQueue<>(settings.workers);
+        for (int i = 0; i < settings.workers; i++) {
+            idle.add(new Worker());
+        }
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "extraction-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return the text of the PDF, as {@link PDFExtractor#pdfAsText(File)} without cache would return it
+     * @throws ExtractionFailedException if the worker failed to extract the file, which is then quarantined
+     */
+    public String extract(File file){
+        if (closed){
+            throw new IllegalStateException("Extraction worker pool is closed");
+        }
+        Worker worker;
+        try {
+            worker = idle.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for an extraction worker", e);
+        }
+        try {
+            return worker.extract(file);
+        } finally {
+            if (closed) {
+                worker.stop();
+            }
+            idle.add(worker);
+        }
+    }
+
+    public ExtractionProfile getProfile() {
+        return settings.profile;
+    }
+
+    /**
+     * @return the number of worker processes started so far, including the recycled ones
+     */
+    public int getStartedWorkers() {
+        return started.get();
+    }
+
+    /**
+     * Stops the idle workers, the busy ones stop once done with their current document
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Worker worker : idle) {
+            worker.stop();
+        }
+        watchdog.shutdownNow();
+    }
+
+    private ExtractionFailedException quarantine(File file, String reason, boolean timeout){
+        LOG.warn("Quarantining {}: {}", file, reason);
+        if (settings.quarantine != null) {
+            try {
+                // the input directory is left untouched, the file is only copied
+                Files.copy(file.toPath(), settings.quarantine.resolve(file.getName()), StandardCopyOption.REPLACE_EXISTING);
+                Files.write(settings.quarantine.resolve(file.getName() + ".reason"), (reason + "\n").getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                LOG.warn("Unable to copy {} to the quarantine directory {}", file, settings.quarantine, e);
+            }
+        }
+        return new ExtractionFailedException(file, reason, timeout);
+    }
+
+    /**
+     * A child process, started on its first document. Only used by one extracting thread at a time,
+     * closing the pool may stop it concurrently.
+     */
+    private final class Worker {
+
+        private Process process;
+        private DataOutputStream requests;
+        private DataInputStream responses;
+        private int documents;
+
+        synchronized String extract(File file){
+            start();
+            Process current = process;
+            AtomicBoolean timedOut = new AtomicBoolean();
+            ScheduledFuture<?> kill = watchdog.schedule(() -> {
+                timedOut.set(true);
+                current.destroyForcibly();
+            }, settings.timeoutMillis, TimeUnit.MILLISECONDS);
+            byte status;
+            String payload;
+            try {
+                ExtractionWorker.writeString(requests, file.getAbsolutePath());
+                requests.flush();
+                status = responses.readByte();
+                payload = ExtractionWorker.readString(responses);
+            } catch (IOException e) {
+                kill.cancel(false);
+                String reason = timedOut.get()
+                        ? "timed out after " + settings.timeoutMillis + " ms"
+                        : "worker process died, " + exitDescription();
+                stop();
+                throw quarantine(file, reason, timedOut.get());
+            }
+            if (!kill.cancel(false) || ++documents >= settings.documentsPerWorker) {
+                // killed just after answering, or due for recycling
+                stop();
+            }
+            if (status == ExtractionWorker.FAILED) {
+                throw quarantine(file, payload, false);
+            }
+            return payload;
+        }
+
+        private void start(){
+            if (process != null && process.isAlive()) {
+                return;
+            }
+            stop();
+            List<String> command = Arrays.asList(
+                    Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                    "-Xmx" + settings.maxHeapMB + "m",
+                    "-XX:+ExitOnOutOfMemoryError",
+                    "-cp", System.getProperty("java.class.path"),
+                    ExtractionWorker.class.getName(),
+                    settings.profile.toArgument());
+            try {
+                process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to start an extraction worker", e);
+            }
+            started.incrementAndGet();
+            documents = 0;
+            requests = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+            responses = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+            Process current = process;
+            ScheduledFuture<?> kill = watchdog.schedule(current::destroyForcibly, STARTUP_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            try {
+                if (responses.readInt() != ExtractionWorker.READY) {
+                    throw new IOException("unexpected handshake");
+                }
+            } catch (IOException e) {
+                stop();
+                throw new UncheckedIOException("Extraction worker failed to start", e);
+            } finally {
+                kill.cancel(false);
+            }
+            LOG.debug("Started extraction worker {}", current);
+        }
+
+        private String exitDescription(){
+            try {
+                if (!process.waitFor(1, TimeUnit.SECONDS)) {
+                    return "still running";
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return "interrupted";
+            }
+            int exitCode = process.exitValue();
+            return exitCode == OUT_OF_MEMORY_EXIT_CODE ? "out of memory" : "exit code " + exitCode;
+        }
+
+        synchronized void stop(){
+            if (process == null) {
+                return;
+            }
+            try {
+                // end of input makes the worker exit
+                requests.close();
+            } catch (IOException e) {
+                LOG.debug("Unable to close the input of extraction worker {}", process, e);
+            }
+            try {
+                if (!process.waitFor(1, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                process.destroyForcibly();
+            }
+            process = null;
+        }
+    }
+}
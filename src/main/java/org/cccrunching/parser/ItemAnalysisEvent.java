@@ -0,0 +1,35 @@
+package org.cccrunching.parser;
+
+import jdk.jfr.*;
+
+/**
+ * Flight recorder event covering the CoreNLP annotation of the discussion of one meeting item
+ */
+@Name("org.cccrunching.ItemAnalysis")
+@Label("Item Analysis")
+@Category({"CCCrunching", "NLP"})
+@Description("Annotation of the discussion of a meeting item, or its retrieval from the annotation cache")
+class ItemAnalysisEvent extends Event {
+
+    @Label("Item Title")
+    String title;
+
+    @Label("Characters")
+    int characters;
+
+    @Label("Tokens")
+    int tokens;
+
+    @Label("Sentences")
+    int sentences;
+
+    @Label("Entities")
+    int entities;
+
+    @Label("From Cache")
+    boolean cached;
+
+    @Label("Failure")
+    @Description("Class of the exception that failed the annotation, null when it succeeded")
+    String failure;
+}
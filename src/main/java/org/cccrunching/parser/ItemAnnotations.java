@@ -0,0 +1,204 @@
+package org.cccrunching.parser;
+
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.util.CoreMap;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Compact form of the CoreNLP annotation of a text: tokens with their lemma and part-of-speech tag,
+ * sentence boundaries and named entity spans. Unlike a full {@link Annotation}, it is cheap to keep
+ * and to store.
+ */
+public class ItemAnnotations {
+
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * Named entity covering the tokens from <code>start</code> (inclusive) to <code>end</code> (exclusive)
+     */
+    public static class EntitySpan {
+
+        private final int start;
+        private final int end;
+        private final String label;
+
+        public EntitySpan(int start, int end, String label){
+            this.start = start;
+            this.end = end;
+            this.label = label;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            EntitySpan that = (EntitySpan) o;
+            return start == that.start &&
+                    end == that.end &&
+                    Objects.equals(label, that.label);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(start, end, label);
+        }
+
+        @Override
+        public String toString() {
+            return "EntitySpan{" + start + "-" + end + " " + label + '}';
+        }
+    }
+
+    private final List<String> tokens;
+    private final List<String> lemmas;
+    private final List<String> posTags;
+    // index of the first token of each sentence
+    private final int[] sentenceStarts;
+    private final List<EntitySpan> entities;
+
+    ItemAnnotations(List<String> tokens, List<String> lemmas, List<String> posTags, int[] sentenceStarts, List<EntitySpan> entities){
+        this.tokens = Collections.unmodifiableList(tokens);
+        this.lemmas = Collections.unmodifiableList(lemmas);
+        this.posTags = Collections.unmodifiableList(posTags);
+        this.sentenceStarts = sentenceStarts;
+        this.entities = Collections.unmodifiableList(entities);
+    }
+
+    public static ItemAnnotations of(Annotation document){
+        List<String> tokens = new ArrayList<>();
+        List<String> lemmas = new ArrayList<>();
+        List<String> posTags = new ArrayList<>();
+        List<EntitySpan> entities = new ArrayList<>();
+        List<CoreMap> sentences = document.get(CoreAnnotations.SentencesAnnotation.class);
+        int[] sentenceStarts = new int[sentences == null ? 0 : sentences.size()];
+        int s = 0;
+        String entity = null;
+        int entityStart = 0;
+        for (CoreMap sentence : sentences == null ? Collections.<CoreMap>emptyList() : sentences) {
+            sentenceStarts[s++] = tokens.size();
+            for (CoreLabel token : sentence.get(CoreAnnotations.TokensAnnotation.class)) {
+                String ner = token.ner() == null || "O".equals(token.ner()) ? null : token.ner();
+                if (!Objects.equals(ner, entity)) {
+                    if (entity != null) {
+                        entities.add(new EntitySpan(entityStart, tokens.size(), entity));
+                    }
+                    entity = ner;
+                    entityStart = tokens.size();
+                }
+                tokens.add(token.word());
+                lemmas.add(token.lemma());
+                posTags.add(token.tag());
+            }
+        }
+        if (entity != null) {
+            entities.add(new EntitySpan(entityStart, tokens.size(), entity));
+        }
+        return new ItemAnnotations(tokens, lemmas, posTags, sentenceStarts, entities);
+    }
+
+    public List<String> getTokens() {
+        return tokens;
+    }
+
+    public List<String> getLemmas() {
+        return lemmas;
+    }
+
+    public List<String> getPosTags() {
+        return posTags;
+    }
+
+    public int getSentenceCount() {
+        return sentenceStarts.length;
+    }
+
+    /**
+     * @return the tokens of the given sentence
+     */
+    public List<String> getSentence(int sentence) {
+        int end = sentence + 1 < sentenceStarts.length ? sentenceStarts[sentence + 1] : tokens.size();
+        return tokens.subList(sentenceStarts[sentence], end);
+    }
+
+    public List<EntitySpan> getEntities() {
+        return entities;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            writeString(out, tokens.get(i));
+            writeString(out, lemmas.get(i));
+            writeString(out, posTags.get(i));
+        }
+        out.writeInt(sentenceStarts.length);
+        for (int start : sentenceStarts) {
+            out.writeInt(start);
+        }
+        out.writeInt(entities.size());
+        for (EntitySpan entity : entities) {
+            out.writeInt(entity.start);
+            out.writeInt(entity.end);
+            writeString(out, entity.label);
+        }
+    }
+
+    static ItemAnnotations readFrom(DataInputStream in) throws IOException {
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported annotation format version " + version);
+        }
+        int size = in.readInt();
+        List<String> tokens = new ArrayList<>(size);
+        List<String> lemmas = new ArrayList<>(size);
+        List<String> posTags = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            tokens.add(readString(in));
+            lemmas.add(readString(in));
+            posTags.add(readString(in));
+        }
+        int[] sentenceStarts = new int[in.readInt()];
+        for (int i = 0; i < sentenceStarts.length; i++) {
+            sentenceStarts[i] = in.readInt();
+        }
+        int entityCount = in.readInt();
+        List<EntitySpan> entities = new ArrayList<>(entityCount);
+        for (int i = 0; i < entityCount; i++) {
+            entities.add(new EntitySpan(in.readInt(), in.readInt(), readString(in)));
+        }
+        return new ItemAnnotations(tokens, lemmas, posTags, sentenceStarts, entities);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) {
+            out.writeUTF(s);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,83 @@
+package org.cccrunching.parser;
+
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * SAX handler cutting the text it receives into lines, with the same line breaks as
+ * {@link java.io.BufferedReader#readLine()}: '\n', '\r' or "\r\n". Markup is ignored,
+ * so it is usually wrapped in a {@link org.apache.tika.sax.BodyContentHandler}.
+ */
+public class LineContentHandler extends DefaultHandler {
+
+    private final LineSink sink;
+    private final StringBuilder line = new StringBuilder(256);
+    private long characters;
+    // the previous chunk ended with '\r', a '\n' starting the next one belongs to the same terminator
+    private boolean pendingCarriageReturn;
+    // the current line has characters or a terminator that was not handed over yet
+    private boolean lineStarted;
+
+    public LineContentHandler(LineSink sink){
+        this.sink = sink;
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        characters += length;
+        int end = start + length;
+        int i = start;
+        if (pendingCarriageReturn && i < end) {
+            pendingCarriageReturn = false;
+            if (ch[i] == '\n') {
+                i++;
+            }
+        }
+        int lineStart = i;
+        for (; i < end; i++) {
+            char c = ch[i];
+            if (c == '\n' || c == '\r') {
+                line.append(ch, lineStart, i - lineStart);
+                sink.line(line, true);
+                line.setLength(0);
+                lineStarted = false;
+                if (c == '\r') {
+                    if (i + 1 == end) {
+                        pendingCarriageReturn = true;
+                    } else if (ch[i + 1] == '\n') {
+                        i++;
+                    }
+                }
+                lineStart = i + 1;
+            }
+        }
+        if (lineStart < end) {
+            line.append(ch, lineStart, end - lineStart);
+            lineStarted = true;
+        }
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) {
+        characters(ch, start, length);
+    }
+
+    /**
+     * Hands over the last line if it has no terminator, it is safe to call more than once
+     */
+    @Override
+    public void endDocument() {
+        if (lineStarted) {
+            sink.line(line, false);
+            line.setLength(0);
+            lineStarted = false;
+        }
+        pendingCarriageReturn = false;
+    }
+
+    /**
+     * @return the number of characters received, line terminators included
+     */
+    public long getCharacters() {
+        return characters;
+    }
+}
@@ -0,0 +1,13 @@
+package org.cccrunching.parser;
+
+/**
+ * Receiver of a text one line at a time
+ */
+public interface LineSink {
+
+    /**
+     * @param line the line without its terminator, only valid during the call
+     * @param terminated false for a last line that is not followed by a line terminator
+     */
+    void line(CharSequence line, boolean terminated);
+}
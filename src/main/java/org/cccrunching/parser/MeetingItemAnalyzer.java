@@ -8,43 +8,277 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Properties;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class MeetingItemAnalyzer {
 
     private final static Logger LOG = LoggerFactory.getLogger(MeetingItemAnalyzer.class);
 
-    private final StanfordCoreNLP pipeline;
+    /**
+     * Outcome of the annotation of the discussion of an item
+     */
+    public static class AnalyzedItem {
+
+        private final MeetingItem item;
+        private final Annotation annotation;
+        private final ItemAnnotations annotations;
+        private final long durationNanos;
+
+        AnalyzedItem(MeetingItem item, Annotation annotation, ItemAnnotations annotations, long durationNanos){
+            this.item = item;
+            this.annotation = annotation;
+            this.annotations = annotations;
+            this.durationNanos = durationNanos;
+        }
+
+        public MeetingItem getItem() {
+            return item;
+        }
+
+        /**
+         * @return the full CoreNLP annotation, absent when the result came from the {@link AnnotationCache}
+         */
+        public Optional<Annotation> getAnnotation() {
+            return Optional.ofNullable(annotation);
+        }
+
+        public ItemAnnotations getAnnotations() {
+            return annotations;
+        }
+
+        public boolean isCached() {
+            return annotation == null;
+        }
+
+        /**
+         * @return the time spent annotating this item
+         */
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+    }
+
+    /**
+     * Annotates a text, the CoreNLP pipeline unless replaced by tests
+     */
+    interface Annotator {
+        Annotation annotate(String text);
+    }
+
+    private final Properties props = new Properties();
+    private final String configuration;
+    private final AnnotationCache cache;
+    private final Annotator annotator;
+    private volatile StanfordCoreNLP pipeline;
 
     public MeetingItemAnalyzer(){
-        Properties props = new Properties();
+        this(null);
+    }
+
+    /**
+     * @param cache cache of previous annotations, null to annotate every item. The pipeline
+     *              is only loaded once an item missing from the cache needs to be annotated.
+     */
+    public MeetingItemAnalyzer(AnnotationCache cache){
         try(InputStream is = this.getClass().getResourceAsStream("/StanfordCoreNLP-french.properties")) {
             props.load(is);
             props.setProperty("annotators", "tokenize, ssplit, pos, parse,lemma,ner");
             String annotators = StanfordCoreNLP.ensurePrerequisiteAnnotators(props.getProperty("annotators").split("[, \t]+"), props);
             props.setProperty("annotators", annotators);
             props.setProperty("ner.language", "french");
-            pipeline = new StanfordCoreNLP(props);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+        this.configuration = new TreeMap<>(props).toString();
+        this.cache = cache;
+        this.annotator = this::annotateWithPipeline;
+    }
+
+    /**
+     * @param configuration description of the annotator, part of the keys of the cache
+     */
+    MeetingItemAnalyzer(AnnotationCache cache, String configuration, Annotator annotator){
+        this.configuration = configuration;
+        this.cache = cache;
+        this.annotator = annotator;
+    }
+
+    private StanfordCoreNLP pipeline(){
+        StanfordCoreNLP loaded = pipeline;
+        if (loaded == null){
+            synchronized (this){
+                loaded = pipeline;
+                if (loaded == null){
+                    loaded = new StanfordCoreNLP(props);
+                    pipeline = loaded;
+                }
+            }
+        }
+        return loaded;
+    }
+
+    private Annotation annotateWithPipeline(String text){
+        Annotation document = new Annotation(text);
+        pipeline().annotate(document);
+        return document;
+    }
+
+    /**
+     * Annotates the discussion of the item, or reuses its annotations from the cache when the same text
+     * was already annotated with the same pipeline
+     * @return the analysis, empty when the item has no discussion
+     */
+    public Optional<AnalyzedItem> analyze(MeetingItem item) throws IOException {
+        if (item.getDiscussion() == null){
+            return Optional.empty();
+        }
+        return Optional.of(annotate(item));
+    }
+
+    /**
+     * Annotates the discussion of all the items having one, using one worker thread per core
+     * @see #analyzeAll(Collection, int)
+     */
+    public Stream<AnalyzedItem> analyzeAll(Collection<MeetingItem> items){
+        return analyzeAll(items, Runtime.getRuntime().availableProcessors());
     }
 
-    public void analyze(MeetingItem item) throws IOException {
-        if (item.getDiscussion() != null){
-            // read some text in the text variable
-            String text = item.getDiscussion();
+    /**
+     * Annotates the discussion of all the items having one. The loaded pipeline is shared by the worker threads.
+     * Results are streamed back in completion order; at most a few items per thread are annotated ahead of
+     * the consumer so that annotations do not pile up in memory.
+     * <p>
+     * The stream must be closed, with try-with-resources, when it is not consumed to the end: closing it cancels
+     * the work left, otherwise the worker threads annotate the items ahead of the consumer and wait for it.
+     * The worker threads are daemon threads and never keep the JVM alive.
+     * @param threads number of items annotated concurrently
+     */
+    public Stream<AnalyzedItem> analyzeAll(Collection<MeetingItem> items, int threads){
+        List<MeetingItem> toAnalyze = items.stream().filter(i -> i.getDiscussion() != null).collect(Collectors.toList());
+        LOG.info("Annotating {} items with {} threads", toAnalyze.size(), threads);
+        AtomicInteger count = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "item-analysis-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletionService<AnalyzedItem> completion = new ExecutorCompletionService<>(executor);
+        Iterator<MeetingItem> pending = toAnalyze.iterator();
+        if (toAnalyze.isEmpty()){
+            executor.shutdown();
+        }
+        int window = Math.min(toAnalyze.size(), threads * 2);
+        for (int i = 0; i < window; i++){
+            MeetingItem item = pending.next();
+            completion.submit(() -> annotate(item));
+        }
 
-            // create an empty Annotation just with the given text
-            Annotation document = new Annotation(text);
+        Iterator<AnalyzedItem> results = new Iterator<AnalyzedItem>() {
+            private int remaining = toAnalyze.size();
+            private long totalNanos;
+            private int cached;
+            private final long start = System.nanoTime();
 
-            // run all Annotators on this text
-            pipeline.annotate(document);
-            for (Class<?> key : document.keySet()) {
-                System.out.println(key);
+            @Override
+            public boolean hasNext() {
+                return remaining > 0;
             }
 
-            LOG.debug("Analysis done");
+            @Override
+            public AnalyzedItem next() {
+                if (remaining == 0){
+                    throw new NoSuchElementException();
+                }
+                AnalyzedItem result;
+                try {
+                    result = take(completion);
+                } catch (RuntimeException e) {
+                    // the stream is unusable after a failure, whether or not the caller closes it
+                    executor.shutdownNow();
+                    throw e;
+                }
+                remaining--;
+                totalNanos += result.getDurationNanos();
+                if (pending.hasNext()){
+                    MeetingItem item = pending.next();
+                    completion.submit(() -> annotate(item));
+                }
+                if (result.isCached()){
+                    cached++;
+                }
+                if (remaining == 0){
+                    executor.shutdown();
+                    LOG.info("Annotated {} items ({} from cache) in {} ms, {} ms of annotation time", toAnalyze.size(), cached,
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), TimeUnit.NANOSECONDS.toMillis(totalNanos));
+                }
+                return result;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliterator(results, toAnalyze.size(), Spliterator.NONNULL | Spliterator.SIZED), false)
+                .onClose(executor::shutdownNow);
+    }
+
+    private AnalyzedItem annotate(MeetingItem item) throws IOException {
+        ItemAnalysisEvent event = new ItemAnalysisEvent();
+        event.begin();
+        AnalyzedItem analyzed = null;
+        try {
+            analyzed = annotateOrReuse(item);
+            return analyzed;
+        } catch (IOException | RuntimeException | Error e) {
+            event.failure = e.getClass().getName();
+            throw e;
+        } finally {
+            // failed annotations are committed as well, without annotation counts
+            if (event.shouldCommit()){
+                event.title = item.getTitle().trim();
+                event.characters = item.getDiscussion().length();
+                if (analyzed != null){
+                    ItemAnnotations annotations = analyzed.getAnnotations();
+                    event.tokens = annotations.getTokens().size();
+                    event.sentences = annotations.getSentenceCount();
+                    event.entities = annotations.getEntities().size();
+                    event.cached = analyzed.isCached();
+                }
+                event.commit();
+            }
+        }
+    }
+
+    private AnalyzedItem annotateOrReuse(MeetingItem item) throws IOException {
+        long start = System.nanoTime();
+        String key = null;
+        if (cache != null){
+            key = AnnotationCache.key(configuration, item.getDiscussion());
+            Optional<ItemAnnotations> cached = cache.get(key);
+            if (cached.isPresent()){
+                return new AnalyzedItem(item, null, cached.get(), System.nanoTime() - start);
+            }
+        }
+        Annotation document = annotator.annotate(item.getDiscussion());
+        ItemAnnotations annotations = ItemAnnotations.of(document);
+        if (cache != null){
+            cache.put(key, annotations);
+        }
+        long duration = System.nanoTime() - start;
+        LOG.debug("Annotated item '{}' ({} characters) in {} ms", item.getTitle().trim(), item.getDiscussion().length(),
+                TimeUnit.NANOSECONDS.toMillis(duration));
+        return new AnalyzedItem(item, document, annotations, duration);
+    }
+
+    private static AnalyzedItem take(CompletionService<AnalyzedItem> completion){
+        try {
+            return completion.take().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for annotations", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Unable to annotate item", e.getCause());
         }
     }
 }
@@ -2,8 +2,27 @@ package org.cccrunching.parser;
 
 import org.cccrunching.data.Meeting;
 
+import java.util.List;
+
+/**
+ * Parser of the minutes of one city council format. Implementations are discovered by
+ * {@link MeetingParserRegistry#load()} through <code>META-INF/services</code> and need a public no-arg constructor.
+ */
 public interface MeetingParser {
 
     Meeting parse(String meetingText);
 
+    /**
+     * Identifies the parsing logic, it must change whenever the parser may produce
+     * a different meeting from the same text so that previously parsed results get invalidated.
+     */
+    String getVersion();
+
+    /**
+     * Literal strings found near the start of the minutes this parser handles, used to pick the parser
+     * of a text without parsing it. They should be specific enough not to appear in the first
+     * {@link MeetingParserRegistry#DETECTION_WINDOW} characters of other formats.
+     */
+    List<String> getSignatureMarkers();
+
 }
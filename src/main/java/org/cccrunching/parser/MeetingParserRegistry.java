@@ -0,0 +1,168 @@
+package org.cccrunching.parser;
+
+import org.cccrunching.data.Meeting;
+import org.cccrunching.data.MeetingItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Parser dispatching each text to the registered parser whose signature marker appears first
+ * in the text. All the markers are combined into a single alternation, so the detection is one
+ * pass over the first {@link #DETECTION_WINDOW} characters whatever the number of parsers.
+ * Instances are thread-safe as long as the registered parsers are.
+ * <p>
+ * When streaming, the lines are buffered until the detection window is full, then replayed to the
+ * detected parser. A parser that cannot stream gets the whole text, rebuilt with '\n' line terminators.
+ */
+public class MeetingParserRegistry implements StreamingMeetingParser {
+
+    private final static Logger LOG = LoggerFactory.getLogger(MeetingParserRegistry.class);
+
+    /**
+     * Number of characters from the start of the text searched for signature markers
+     */
+    public static final int DETECTION_WINDOW = 8 * 1024;
+
+    private final List<MeetingParser> parsers;
+    // group i+1 of the pattern matches the markers of parsers.get(i)
+    private final Pattern signatures;
+    private final String version;
+
+    public MeetingParserRegistry(Collection<? extends MeetingParser> parsers){
+        if (parsers.isEmpty()){
+            throw new IllegalArgumentException("At least one meeting parser is required");
+        }
+        for (MeetingParser parser : parsers) {
+            if (parser.getSignatureMarkers().isEmpty() || parser.getSignatureMarkers().contains("")){
+                throw new IllegalArgumentException("Parser " + parser.getVersion() + " must declare non-empty signature markers");
+            }
+        }
+        this.parsers = Collections.unmodifiableList(new ArrayList<>(parsers));
+        this.signatures = Pattern.compile(this.parsers.stream()
+                .map(p -> p.getSignatureMarkers().stream().map(Pattern::quote).collect(Collectors.joining("|", "(", ")")))
+                .collect(Collectors.joining("|")));
+        this.version = this.parsers.stream().map(MeetingParser::getVersion).sorted().collect(Collectors.joining("+"));
+    }
+
+    /**
+     * @return a registry of all the parsers declared in <code>META-INF/services/org.cccrunching.parser.MeetingParser</code>
+     */
+    public static MeetingParserRegistry load(){
+        List<MeetingParser> parsers = new ArrayList<>();
+        ServiceLoader.load(MeetingParser.class).forEach(parsers::add);
+        LOG.info("Loaded meeting parsers {}", parsers.stream().map(MeetingParser::getVersion).collect(Collectors.toList()));
+        return new MeetingParserRegistry(parsers);
+    }
+
+    public List<MeetingParser> getParsers() {
+        return parsers;
+    }
+
+    /**
+     * @return the parser whose signature marker is the first one found in the start of the text
+     */
+    public Optional<MeetingParser> detect(String meetingText){
+        Matcher matcher = signatures.matcher(meetingText);
+        matcher.region(0, Math.min(meetingText.length(), DETECTION_WINDOW));
+        if (!matcher.find()){
+            return Optional.empty();
+        }
+        for (int group = 1; group <= parsers.size(); group++) {
+            if (matcher.start(group) >= 0){
+                return Optional.of(parsers.get(group - 1));
+            }
+        }
+        throw new IllegalStateException("Signature matched without any parser group");
+    }
+
+    @Override
+    public Meeting parse(String meetingText) {
+        MeetingParser parser = detect(meetingText)
+                .orElseThrow(() -> new IllegalArgumentException("No signature marker of a known meeting format found in text"));
+        return parser.parse(meetingText);
+    }
+
+    /**
+     * @return the versions of all the registered parsers, so that adding or changing a parser
+     * invalidates the results of previous runs, unparseable files included
+     */
+    @Override
+    public String getVersion() {
+        return version;
+    }
+
+    @Override
+    public Session open(Consumer<MeetingItem> itemListener) {
+        return new DetectingSession(itemListener);
+    }
+
+    @Override
+    public List<String> getSignatureMarkers() {
+        return parsers.stream().flatMap(p -> p.getSignatureMarkers().stream()).collect(Collectors.toList());
+    }
+
+    private class DetectingSession implements Session {
+
+        private final Consumer<MeetingItem> itemListener;
+        // lines received before the detection, then the whole text for a parser that cannot stream
+        private final StringBuilder buffer = new StringBuilder();
+        private MeetingParser parser;
+        private Session session;
+        private IllegalArgumentException failure;
+
+        DetectingSession(Consumer<MeetingItem> itemListener){
+            this.itemListener = itemListener;
+        }
+
+        @Override
+        public void line(CharSequence line, boolean terminated) {
+            if (session != null) {
+                session.line(line, terminated);
+                return;
+            } else if (failure != null) {
+                return;
+            }
+            buffer.append(line);
+            if (terminated) {
+                buffer.append('\n');
+            }
+            if (parser == null && buffer.length() >= DETECTION_WINDOW) {
+                try {
+                    select();
+                } catch (IllegalArgumentException e) {
+                    // reported by finish(), the remaining lines are ignored
+                    failure = e;
+                }
+            }
+        }
+
+        private void select(){
+            String start = buffer.toString();
+            parser = detect(start)
+                    .orElseThrow(() -> new IllegalArgumentException("No signature marker of a known meeting format found in text"));
+            if (parser instanceof StreamingMeetingParser) {
+                session = ((StreamingMeetingParser) parser).open(itemListener);
+                LineContentHandler replay = new LineContentHandler(session);
+                replay.characters(start.toCharArray(), 0, start.length());
+                replay.endDocument();
+                buffer.setLength(0);
+            }
+        }
+
+        @Override
+        public Meeting finish() {
+            if (failure != null) {
+                throw failure;
+            } else if (parser == null) {
+                select();
+            }
+            return session != null ? session.finish() : parser.parse(buffer.toString());
+        }
+    }
+}
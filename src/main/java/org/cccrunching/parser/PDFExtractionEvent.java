@@ -0,0 +1,34 @@
+package org.cccrunching.parser;
+
+import jdk.jfr.*;
+
+/**
+ * Flight recorder event covering the extraction of the text of one PDF file
+ */
+@Name("org.cccrunching.PDFExtraction")
+@Label("PDF Extraction")
+@Category({"CCCrunching", "Ingestion"})
+@Description("Extraction of the text of a PDF file, or its retrieval from the text cache")
+class PDFExtractionEvent extends Event {
+
+    @Label("File")
+    String file;
+
+    @Label("PDF Size")
+    @DataAmount
+    long pdfBytes;
+
+    @Label("Characters")
+    int characters;
+
+    @Label("From Cache")
+    boolean cached;
+
+    @Label("Loaded For Splitting")
+    @Description("Whether PDFBox loaded the document to decide on its extraction by page ranges")
+    boolean loadedForSplitting;
+
+    @Label("Failure")
+    @Description("Class of the exception that failed the extraction, null when it succeeded")
+    String failure;
+}
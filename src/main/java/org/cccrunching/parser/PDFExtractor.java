@@ -1,42 +1,304 @@
 package org.cccrunching.parser;
 
+import org.apache.pdfbox.multipdf.Splitter;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDDocumentCatalog;
 import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.pdf.PDFParser;
+import org.apache.tika.parser.pdf.PDFParserConfig;
 import org.apache.tika.sax.BodyContentHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 
 import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class PDFExtractor {
 
     private final static Logger LOG = LoggerFactory.getLogger(PDFExtractor.class);
 
+    /**
+     * Extraction of large PDFs split into page ranges handled concurrently. The text of each range
+     * is the text of its pages, so concatenating the ranges in page order gives the same text as a
+     * serial extraction. Documents with document-level content that the profile extracts, which Tika
+     * renders once for the whole file, are extracted serially: outlines, interactive forms and embedded files.
+     * <p>
+     * Deciding to split a document takes loading it with PDFBox, on top of its parsing by Tika when it ends up
+     * extracted serially. Files smaller than {@link #minBytes(long)} are extracted serially without being loaded.
+     */
+    public static class PageParallelism {
+
+        private int threads = 1;
+        private int minPages = 100;
+        private long minBytes = -1;
+        private int pagesPerRange = 0;
+
+        /**
+         * Number of threads extracting the page ranges, shared by all the documents. 1 disables the page parallelism.
+         */
+        public PageParallelism threads(int threads){
+            if (threads < 1){
+                throw new IllegalArgumentException("Threads must be at least 1, got " + threads);
+            }
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * Smallest document that gets split, smaller documents are extracted serially
+         */
+        public PageParallelism minPages(int minPages){
+            this.minPages = minPages;
+            return this;
+        }
+
+        /**
+         * Smallest file whose page count is read to decide whether it gets split. By default 1 KB per page
+         * of {@link #minPages(int)}, less than any page of text, so that no file that could be split is missed.
+         */
+        public PageParallelism minBytes(long minBytes){
+            this.minBytes = minBytes;
+            return this;
+        }
+
+        /**
+         * Number of pages of each range, 0 to split each document in twice as many ranges as threads
+         */
+        public PageParallelism pagesPerRange(int pagesPerRange){
+            this.pagesPerRange = pagesPerRange;
+            return this;
+        }
+
+        long sizeThreshold(){
+            return minBytes >= 0 ? minBytes : 1024L * minPages;
+        }
+
+        int rangeSize(int pages){
+            return pagesPerRange > 0 ? pagesPerRange : Math.max(1, (pages + 2 * threads - 1) / (2 * threads));
+        }
+    }
+
+    private final TextCache cache;
+    private final ExtractionProfile profile;
+    private final String profileFingerprint;
+    // stateless, shared by all the extractions
+    private final PDFParser pdfParser = new PDFParser();
+    private final PageParallelism pageParallelism;
+    // null when the page parallelism is disabled
+    private final ExecutorService pageExecutor;
+    // null to extract in this process
+    private final ExtractionWorkerPool workers;
+
+    public PDFExtractor(){
+        this(null);
+    }
+
+    /**
+     * @param cache cache of previously extracted texts, null to always run the extraction
+     */
+    public PDFExtractor(TextCache cache){
+        this(cache, new PageParallelism());
+    }
+
+    /**
+     * @param cache cache of previously extracted texts, null to always run the extraction
+     * @param pageParallelism splitting of large documents into page ranges extracted concurrently
+     */
+    public PDFExtractor(TextCache cache, PageParallelism pageParallelism){
+        this(cache, pageParallelism, ExtractionProfile.textOnly());
+    }
+
+    /**
+     * @param cache cache of previously extracted texts, null to always run the extraction
+     * @param pageParallelism splitting of large documents into page ranges extracted concurrently
+     * @param profile settings of the PDF parser
+     */
+    public PDFExtractor(TextCache cache, PageParallelism pageParallelism, ExtractionProfile profile){
+        this(cache, pageParallelism, profile, null);
+    }
+
+    /**
+     * @param cache cache of previously extracted texts, null to always run the extraction
+     * @param workers isolated processes running the extractions, which then throw an
+     *                {@link ExtractionFailedException} for the files the workers fail on
+     */
+    public PDFExtractor(TextCache cache, ExtractionWorkerPool workers){
+        this(cache, new PageParallelism(), workers.getProfile(), workers);
+    }
+
+    private PDFExtractor(TextCache cache, PageParallelism pageParallelism, ExtractionProfile profile, ExtractionWorkerPool workers){
+        this.cache = cache;
+        this.profile = profile;
+        this.profileFingerprint = profile.fingerprint();
+        this.pdfParser.setPDFParserConfig(profile.parserConfig());
+        this.pageParallelism = pageParallelism;
+        this.workers = workers;
+        if (pageParallelism.threads > 1){
+            AtomicInteger count = new AtomicInteger();
+            this.pageExecutor = Executors.newFixedThreadPool(pageParallelism.threads, r -> {
+                Thread thread = new Thread(r, "pdf-pages-" + count.incrementAndGet());
+                // idle threads must not keep the JVM alive, an extractor has no lifecycle
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.pageExecutor = null;
+        }
+    }
+
+    /**
+     * @return a hash of the extraction settings, which changes whenever the same PDF may give a different text
+     */
+    public String getProfileFingerprint() {
+        return profileFingerprint;
+    }
+
+    /**
+     * @return whether extracted texts are cached, in which case {@link #pdfAsText(File)} should be preferred
+     * to {@link #pdfAsLines(File, LineSink)}
+     */
+    public boolean hasCache() {
+        return cache != null;
+    }
+
     private String pdfInputStreamToText(InputStream is) throws TikaException, SAXException, IOException {
         BodyContentHandler handler = new BodyContentHandler(-1);
+        parse(is, handler);
+
+        //getting the content of the document
+        return profile.normalize(handler.toString());
+    }
+
+    private void parse(InputStream is, ContentHandler handler) throws TikaException, SAXException, IOException {
         Metadata metadata = new Metadata();
 
         ParseContext pcontext = new ParseContext();
 
         //parsing the document using PDF parser
-        PDFParser pdfparser = new PDFParser();
-        pdfparser.parse(is, handler, metadata, pcontext);
-
-        //getting the content of the document
-        String content = handler.toString();
+        pdfParser.parse(is, handler, metadata, pcontext);
 
         //getting metadata of the document
         LOG.debug(metadata.toString());
-        return content;
+    }
+
+    /**
+     * Streams the text of the PDF to the sink line by line, as it is extracted, without ever holding
+     * the whole text. The text cache is neither read nor filled. With isolated workers, the text is
+     * only streamed once received from the worker.
+     * @return the number of characters of the text, before any unicode normalization
+     */
+    public long pdfAsLines(File file, LineSink sink){
+        PDFExtractionEvent event = new PDFExtractionEvent();
+        event.begin();
+        LOG.info("Processing PDF streaming extraction from file {} -- START", file);
+        LineContentHandler lines = null;
+        try {
+            List<Future<String>> ranges = extractPageRanges(file, event);
+            if (workers != null){
+                // normalized by the worker
+                lines = new LineContentHandler(sink);
+                char[] text = workers.extract(file).toCharArray();
+                lines.characters(text, 0, text.length);
+            } else if (ranges != null){
+                // normalized range by range, ranges completed ahead of the one being parsed are held in memory
+                lines = new LineContentHandler(sink);
+                for (Future<String> range : ranges) {
+                    char[] text = await(range, ranges).toCharArray();
+                    lines.characters(text, 0, text.length);
+                }
+            } else {
+                lines = new LineContentHandler(profile.normalizing(sink));
+                try (InputStream inputstream = TikaInputStream.get(file.toPath())) {
+                    parse(inputstream, new BodyContentHandler(lines));
+                }
+            }
+            lines.endDocument();
+            LOG.info("Processing PDF streaming extraction from file {} -- DONE", file);
+            return lines.getCharacters();
+        } catch (IOException | TikaException | SAXException e) {
+            event.failure = e.getClass().getName();
+            throw new RuntimeException(e);
+        } catch (RuntimeException | Error e) {
+            event.failure = e.getClass().getName();
+            throw e;
+        } finally {
+            // failed extractions are committed as well, with the characters streamed until the failure
+            commit(event, file, lines == null ? 0 : lines.getCharacters());
+        }
     }
 
     public String pdfAsText(File file){
+        PDFExtractionEvent event = new PDFExtractionEvent();
+        event.begin();
+        String str = null;
+        try {
+            str = cache == null ? extract(file, event) : extractOrReuse(file, event);
+            return str;
+        } catch (RuntimeException | Error e) {
+            event.failure = e.getClass().getName();
+            throw e;
+        } finally {
+            commit(event, file, str == null ? 0 : str.length());
+        }
+    }
+
+    private static void commit(PDFExtractionEvent event, File file, long characters){
+        if (event.shouldCommit()){
+            event.file = file.getName();
+            event.pdfBytes = file.length();
+            event.characters = (int) characters;
+            event.commit();
+        }
+    }
+
+    private String extractOrReuse(File file, PDFExtractionEvent event){
+        try {
+            // texts extracted with other settings are not reused
+            String key = TextCache.key(file) + "-" + profileFingerprint;
+            Optional<String> cached = cache.get(key);
+            if (cached.isPresent()){
+                LOG.info("Reusing cached text of file {}", file);
+                event.cached = true;
+                return cached.get();
+            }
+            String str = extract(file, event);
+            cache.put(key, str);
+            return str;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private String extract(File file, PDFExtractionEvent event){
         LOG.info("Processing PDF extraction from file {} -- START", file);
-        try (InputStream inputstream = new BufferedInputStream(new FileInputStream(file))) {
-            String str = pdfInputStreamToText(inputstream);
+        try {
+            String str;
+            List<Future<String>> ranges = extractPageRanges(file, event);
+            if (workers != null){
+                str = workers.extract(file);
+            } else if (ranges != null){
+                StringBuilder text = new StringBuilder();
+                for (Future<String> range : ranges) {
+                    text.append(await(range, ranges));
+                }
+                str = text.toString();
+            } else {
+                try (InputStream inputstream = TikaInputStream.get(file.toPath())) {
+                    str = pdfInputStreamToText(inputstream);
+                }
+            }
             LOG.info("Processing PDF extraction from file {} -- DONE", file);
             return str;
         } catch (IOException | TikaException | SAXException e) {
@@ -44,6 +306,75 @@ public class PDFExtractor {
         }
     }
 
+    /**
+     * Splits the document into page ranges and submits their extraction. The ranges are written
+     * by the calling thread, since they share objects with the source document, and only the text
+     * extraction runs concurrently.
+     * @return the texts of the page ranges in page order, null when the document must be extracted serially
+     */
+    private List<Future<String>> extractPageRanges(File file, PDFExtractionEvent event) throws IOException {
+        if (pageExecutor == null || file.length() < pageParallelism.sizeThreshold()){
+            return null;
+        }
+        List<byte[]> ranges = new ArrayList<>();
+        event.loadedForSplitting = true;
+        try (PDDocument document = PDDocument.load(file)) {
+            int pages = document.getNumberOfPages();
+            if (pages < pageParallelism.minPages || !isSplittable(document, pdfParser.getPDFParserConfig())){
+                return null;
+            }
+            Splitter splitter = new Splitter();
+            splitter.setSplitAtPage(pageParallelism.rangeSize(pages));
+            for (PDDocument range : splitter.split(document)) {
+                try {
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    range.save(bytes);
+                    ranges.add(bytes.toByteArray());
+                } finally {
+                    range.close();
+                }
+            }
+            LOG.info("Extracting the {} pages of {} as {} concurrent ranges", pages, file, ranges.size());
+        }
+        List<Future<String>> texts = new ArrayList<>(ranges.size());
+        for (byte[] range : ranges) {
+            texts.add(pageExecutor.submit(() -> pdfInputStreamToText(new ByteArrayInputStream(range))));
+        }
+        return texts;
+    }
+
+    private static boolean isSplittable(PDDocument document, PDFParserConfig config){
+        PDDocumentCatalog catalog = document.getDocumentCatalog();
+        return (!config.getExtractBookmarksText() || catalog.getDocumentOutline() == null)
+                && (!config.getExtractAcroFormContent() || catalog.getAcroForm() == null)
+                && (catalog.getNames() == null || catalog.getNames().getEmbeddedFiles() == null);
+    }
+
+    private static String await(Future<String> range, List<Future<String>> ranges) throws IOException, TikaException, SAXException {
+        try {
+            return range.get();
+        } catch (InterruptedException e) {
+            ranges.forEach(r -> r.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the extraction of a page range", e);
+        } catch (ExecutionException e) {
+            ranges.forEach(r -> r.cancel(true));
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof TikaException) {
+                throw (TikaException) cause;
+            } else if (cause instanceof SAXException) {
+                throw (SAXException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
 
     /**
      * Converts a PDF from the classpath into text
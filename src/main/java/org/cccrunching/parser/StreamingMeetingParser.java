@@ -0,0 +1,33 @@
+package org.cccrunching.parser;
+
+import org.cccrunching.data.Meeting;
+import org.cccrunching.data.MeetingItem;
+
+import java.util.function.Consumer;
+
+/**
+ * Parser that can build a meeting from the lines of the minutes as they are extracted,
+ * without the whole text ever being held in memory
+ */
+public interface StreamingMeetingParser extends MeetingParser {
+
+    /**
+     * Parsing of one text, fed line by line. A session is not thread-safe.
+     */
+    interface Session extends LineSink {
+
+        /**
+         * Completes the parsing once all the lines have been fed
+         * @throws IllegalArgumentException when the text is not meeting minutes this parser can handle,
+         * in the same cases as {@link MeetingParser#parse(String)}
+         */
+        Meeting finish();
+    }
+
+    /**
+     * @param itemListener called with every item as soon as it is parsed, null if not needed. Items may be
+     *                     reported for a text that eventually fails, and an item replaced by a later one with
+     *                     the same title is reported as well.
+     */
+    Session open(Consumer<MeetingItem> itemListener);
+}
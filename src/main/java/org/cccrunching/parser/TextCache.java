@@ -0,0 +1,111 @@
+package org.cccrunching.parser;
+
+import com.google.common.hash.Hashing;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Directory of gzipped texts extracted from PDFs, keyed by the hash of the PDF content.
+ * The total size of the directory is capped, the least recently used entries being
+ * evicted first (the last modification time of a file is refreshed on every hit).
+ * <p>
+ * Instances are thread-safe, several processes sharing the same directory is supported
+ * as long as they do not mind the size cap being approximate.
+ */
+public class TextCache {
+
+    private final static Logger LOG = LoggerFactory.getLogger(TextCache.class);
+
+    private static final String SUFFIX = ".txt.gz";
+
+    private final Path directory;
+    private final long maxBytes;
+    private final AtomicLong currentBytes = new AtomicLong();
+
+    public TextCache(Path directory, long maxBytes) throws IOException {
+        if (maxBytes <= 0){
+            throw new IllegalArgumentException("Cache size must be positive, got "+maxBytes);
+        }
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+        for (Path entry : entries()){
+            currentBytes.addAndGet(Files.size(entry));
+        }
+        LOG.info("Using text cache in {} holding {} bytes out of {}", directory, currentBytes.get(), maxBytes);
+    }
+
+    public static String key(File pdf) throws IOException {
+        return com.google.common.io.Files.asByteSource(pdf).hash(Hashing.sha256()).toString();
+    }
+
+    public Optional<String> get(String key){
+        Path entry = directory.resolve(key + SUFFIX);
+        try (InputStream is = new GZIPInputStream(new BufferedInputStream(Files.newInputStream(entry)))) {
+            String text = IOUtils.toString(is, StandardCharsets.UTF_8);
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            return Optional.of(text);
+        } catch (NoSuchFileException e){
+            return Optional.empty();
+        } catch (IOException e){
+            LOG.warn("Ignoring unreadable text cache entry {}", entry, e);
+            return Optional.empty();
+        }
+    }
+
+    public void put(String key, String text) throws IOException {
+        Path entry = directory.resolve(key + SUFFIX);
+        Path tmp = Files.createTempFile(directory, key, ".tmp");
+        try (Writer w = new OutputStreamWriter(new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp))), StandardCharsets.UTF_8)) {
+            w.write(text);
+        }
+        long previousSize = Files.exists(entry) ? Files.size(entry) : 0;
+        Files.move(tmp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (currentBytes.addAndGet(Files.size(entry) - previousSize) > maxBytes){
+            evict();
+        }
+    }
+
+    private synchronized void evict() throws IOException {
+        List<Path> entries = entries();
+        entries.sort(Comparator.comparing(TextCache::lastModified));
+        for (Path entry : entries){
+            if (currentBytes.get() <= maxBytes){
+                break;
+            }
+            long size = Files.size(entry);
+            if (Files.deleteIfExists(entry)){
+                currentBytes.addAndGet(-size);
+                LOG.debug("Evicted {} from the text cache", entry);
+            }
+        }
+    }
+
+    private List<Path> entries() throws IOException {
+        List<Path> entries = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            stream.forEach(entries::add);
+        }
+        return entries;
+    }
+
+    private static FileTime lastModified(Path p){
+        try {
+            return Files.getLastModifiedTime(p);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.cccrunching.parser.lalouviere;
+
+import org.cccrunching.data.MeetingItem;
+
+import java.util.Map;
+
+/**
+ * Splits the whole debate part of the minutes into items.
+ * <p>
+ * The text is scanned once. Blocks are recorded as offsets into the source text, and strings are
+ * only created when an item is emitted, so blocks that get superseded are never copied.
+ */
+final class DebateItemSplitter extends DebateStateMachine<DebateItemSplitter.Block> {
+
+    /**
+     * Immutable block of text: a head line, then a body of whole lines
+     */
+    static final class Block {
+
+        final int headStart;
+        final int headEnd;
+        final int bodyStart;
+        final int bodyEnd;
+        final boolean bodyTerminated;
+
+        Block(int headStart, int headEnd, int bodyStart, int bodyEnd, boolean bodyTerminated){
+            this.headStart = headStart;
+            this.headEnd = headEnd;
+            this.bodyStart = bodyStart;
+            this.bodyEnd = bodyEnd;
+            this.bodyTerminated = bodyTerminated;
+        }
+    }
+
+    private final String source;
+
+    // block being accumulated
+    private int headStart;
+    private int headEnd;
+    private int bodyStart = -1;
+    private int bodyEnd;
+    private boolean bodyTerminated;
+
+    // current line
+    private int lineStart;
+    private int lineEnd;
+    private int next;
+
+    DebateItemSplitter(String source){
+        super(null);
+        this.source = source;
+    }
+
+    Map<String, MeetingItem> split(){
+        int length = source.length();
+        lineStart = 0;
+        while (lineStart < length) {
+            // same line breaks as BufferedReader.readLine: \n, \r or \r\n
+            lineEnd = lineStart;
+            while (lineEnd < length && source.charAt(lineEnd) != '\n' && source.charAt(lineEnd) != '\r') {
+                lineEnd++;
+            }
+            next = lineEnd;
+            if (next < length) {
+                next += source.charAt(next) == '\r' && next + 1 < length && source.charAt(next + 1) == '\n' ? 2 : 1;
+            }
+            line(LineClassifier.classify(source, lineStart, lineEnd), lineEnd == lineStart);
+            lineStart = next;
+        }
+        return finish();
+    }
+
+    @Override
+    boolean isBlockEmpty(){
+        return headEnd == headStart && bodyStart < 0;
+    }
+
+    @Override
+    void startBlock(){
+        headStart = lineStart;
+        headEnd = lineEnd;
+        bodyStart = -1;
+    }
+
+    @Override
+    void appendLine(){
+        if (bodyStart < 0) {
+            bodyStart = lineStart;
+        }
+        bodyEnd = next;
+        bodyTerminated = next > lineEnd;
+    }
+
+    @Override
+    Block endBlock(){
+        return bodyStart < 0
+                ? new Block(headStart, headEnd, headEnd, headEnd, true)
+                : new Block(headStart, headEnd, bodyStart, bodyEnd, bodyTerminated);
+    }
+
+    @Override
+    String text(Block block){
+        if (block.headStart == block.headEnd && block.bodyTerminated && !containsCarriageReturn(block.bodyStart, block.bodyEnd)) {
+            return source.substring(block.bodyStart, block.bodyEnd);
+        }
+        StringBuilder text = new StringBuilder(block.headEnd - block.headStart + block.bodyEnd - block.bodyStart + 1);
+        text.append(source, block.headStart, block.headEnd);
+        for (int i = block.bodyStart; i < block.bodyEnd; i++) {
+            char c = source.charAt(i);
+            if (c == '\r') {
+                text.append('\n');
+                if (i + 1 < block.bodyEnd && source.charAt(i + 1) == '\n') {
+                    i++;
+                }
+            } else {
+                text.append(c);
+            }
+        }
+        if (!block.bodyTerminated) {
+            text.append('\n');
+        }
+        return text.toString();
+    }
+
+    private boolean containsCarriageReturn(int start, int end){
+        for (int i = start; i < end; i++) {
+            if (source.charAt(i) == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
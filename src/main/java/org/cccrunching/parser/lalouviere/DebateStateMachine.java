@@ -0,0 +1,149 @@
+package org.cccrunching.parser.lalouviere;
+
+import org.cccrunching.data.MeetingItem;
+import org.cccrunching.parser.lalouviere.LaLouvMeetingParser.Token.TokenType;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * State machine splitting the lines of the debate part of the minutes into items, each made of a title,
+ * an optional discussion and an optional decision.
+ * <p>
+ * Subclasses own the text: they feed the classified lines with {@link #line(TokenType, boolean)} and
+ * keep the current line available to {@link #startBlock()} and {@link #appendLine()}. A block is its first
+ * line, without line terminator, followed by the next lines, each ending with '\n' whatever its original terminator.
+ *
+ * @param <B> handle on the text of a completed block
+ */
+abstract class DebateStateMachine<B> {
+
+    private static final String UNANIMOUS_VOTE_MARKER = "A l'unanimité,";
+
+    private enum ParserStates { DEBATE, DECISION, TITLE }
+
+    private final Map<String, MeetingItem> items = new LinkedHashMap<>();
+    private final Consumer<MeetingItem> itemListener;
+    private ParserStates currentState = ParserStates.TITLE;
+
+    private B topic;
+    private B discussion;
+    private B decision;
+
+    /**
+     * @param itemListener called with every item as soon as it is complete, null if not needed
+     */
+    DebateStateMachine(Consumer<MeetingItem> itemListener){
+        this.itemListener = itemListener;
+    }
+
+    /**
+     * Handles the current line
+     * @param type type of the line
+     * @param empty whether the line has no character besides its terminator
+     */
+    final void line(TokenType type, boolean empty){
+        if (isBlockEmpty() && empty) {
+            return;
+        }
+        switch (currentState) {
+            case DECISION: {
+                if (type == TokenType.TEXT) {
+                    appendLine();
+                } else {
+                    decision = endBlock();
+                    if (type == TokenType.ITEM) {
+                        currentState = ParserStates.TITLE;
+                        emitItem();
+                    } else if (type == TokenType.DISCUSSION) {
+                        currentState = ParserStates.DEBATE;
+                    }
+                    startBlock();
+                }
+                break;
+            }
+            case DEBATE: {
+                if (type == TokenType.TEXT || type == TokenType.DISCUSSION) {
+                    appendLine();
+                } else {
+                    discussion = endBlock();
+                    if (type == TokenType.DECISION) {
+                        currentState = ParserStates.DECISION;
+                    } else if (type == TokenType.ITEM) {
+                        currentState = ParserStates.TITLE;
+                        emitItem();
+                    }
+                    startBlock();
+                }
+                break;
+            }
+            case TITLE: {
+                if (type == TokenType.TEXT || type == TokenType.ITEM) {
+                    appendLine();
+                } else {
+                    topic = endBlock();
+                    if (type == TokenType.DECISION) {
+                        currentState = ParserStates.DECISION;
+                    } else if (type == TokenType.DISCUSSION) {
+                        currentState = ParserStates.DEBATE;
+                    }
+                    startBlock();
+                }
+                break;
+            }
+        }
+    }
+
+    /**
+     * Completes the last item once all the lines are handled
+     * @return the items by title, an item replacing a previous one with the same title keeps its position
+     */
+    final Map<String, MeetingItem> finish(){
+        switch (currentState) {
+            case TITLE: {
+                topic = endBlock();
+                break;
+            }
+            case DECISION: {
+                decision = endBlock();
+                break;
+            }
+            case DEBATE: {
+                discussion = endBlock();
+                break;
+            }
+        }
+        emitItem();
+        return items;
+    }
+
+    private void emitItem(){
+        String title = topic == null ? "" : text(topic);
+        String discussionText = discussion == null ? null : text(discussion);
+        String decisionText = decision == null ? null : text(decision);
+        MeetingItem item = new MeetingItem(title, discussionText, decisionText, decisionText == null ? null : decisionText.contains(UNANIMOUS_VOTE_MARKER));
+        items.put(title, item);
+        if (itemListener != null) {
+            itemListener.accept(item);
+        }
+        discussion = null;
+        decision = null;
+    }
+
+    abstract boolean isBlockEmpty();
+
+    /**
+     * Starts a new block whose head is the current line
+     */
+    abstract void startBlock();
+
+    /**
+     * Appends the current line to the body of the block
+     */
+    abstract void appendLine();
+
+    abstract B endBlock();
+
+    abstract String text(B block);
+}
@@ -3,15 +3,13 @@ package org.cccrunching.parser.lalouviere;
 import org.cccrunching.data.Meeting;
 import org.cccrunching.data.MeetingItem;
 import org.cccrunching.data.Person;
-import org.cccrunching.parser.MeetingParser;
+import org.cccrunching.parser.StreamingMeetingParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.StringReader;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -20,17 +18,20 @@ import java.util.stream.Collectors;
  * A class implementing Meeting parsing logic for meeting minutes
  * from the city of La Louvière.
  */
-public class LaLouvMeetingParser implements MeetingParser {
+public class LaLouvMeetingParser implements StreamingMeetingParser {
 
     private final static Logger LOG = LoggerFactory.getLogger(LaLouvMeetingParser.class);
 
+    /**
+     * To be incremented with every change of the parsing rules
+     */
+    public static final String VERSION = "lalouviere-2";
+    public static final String CITY = "La Louvière";
+
     private static final String INTRODUCTION = "Avant-Séance";
     public static final String ATTENDEES_BLOCK_START = "Sont présents : ";
-    private static Pattern PATTERN_OPENING = Pattern.compile("La séance est ouverte à [0-9]+ h(eures)? [0-9]*", Pattern.DOTALL);
-
-    private static Pattern PATTERN_DEBATE_ITEMS = Pattern.compile("\\s*([0-9]+\\.- .*)");
-    private static Pattern PATTERN_DECISION_MARKER = Pattern.compile("\\s*Le Conseil,.*");
-    private static Pattern PATTERN_DEBATE_MARKER = Pattern.compile("\\s*(M\\..*)\\s*:.*");
+    public static final String TITLE_MARKER = "CONSEIL COMMUNAL DU";
+    static final Pattern PATTERN_OPENING = Pattern.compile("La séance est ouverte à [0-9]+ h(eures)? [0-9]*", Pattern.DOTALL);
 
 
     public List<String> extractAgendaItems(String str){
@@ -38,8 +39,6 @@ public class LaLouvMeetingParser implements MeetingParser {
         return Arrays.asList(split);
     }
 
-    private enum ParserStates { TEXT, DEBATE, DECISION, TITLE};
-
     public static class Token {
 
         final String text;
@@ -47,120 +46,18 @@ public class LaLouvMeetingParser implements MeetingParser {
 
         public enum TokenType {TEXT, ITEM, DECISION, DISCUSSION}
 
-        private static Optional<Token> m(Pattern p, String str, TokenType type){
-            Matcher matcher = p.matcher(str);
-            if (matcher.matches()){
-                return Optional.of(new Token(type,matcher.group(0)));
-            } else {
-                return Optional.empty();
-            }
-        }
-
         Token(TokenType type, String input){
             this.text = input;
             this.type = type;
         }
 
         static Token parse(String s){
-            return   m(PATTERN_DEBATE_ITEMS, s, TokenType.ITEM)
-                    .orElse(m(PATTERN_DECISION_MARKER, s, TokenType.DECISION)
-                            .orElse(m(PATTERN_DEBATE_MARKER, s, TokenType.DISCUSSION).orElse(new Token(TokenType.TEXT, s))));
+            return new Token(LineClassifier.classify(s), s);
         }
     }
 
     public Map<String, MeetingItem> splitDebateItems(String str){
-        Map<String,MeetingItem> map = new LinkedHashMap<>();
-
-        try (BufferedReader reader = new BufferedReader(new StringReader(str))){
-            String line;
-            String currentTopic = "";
-            String currentDiscussion = null;
-            String currentDecision = null;
-            StringBuffer buffer = new StringBuffer();
-            ParserStates currentState = ParserStates.TITLE;
-            while ((line = reader.readLine()) != null){
-                Token tok = Token.parse(line);
-                if (buffer.length() > 0 || !line.isEmpty()) {
-                    switch (currentState) {
-                        case DECISION: {
-                            if (tok.type == Token.TokenType.TEXT) {
-                                buffer.append(line + "\n");
-                            } else {
-                                currentDecision = buffer.toString();
-
-                                if (tok.type == Token.TokenType.DECISION) {
-                                    currentState = ParserStates.DECISION;
-                                } else if (tok.type == Token.TokenType.ITEM) {
-                                    currentState = ParserStates.TITLE;
-                                    map.put(currentTopic, new MeetingItem(currentTopic, currentDiscussion, currentDecision, currentDecision== null ? null :  currentDecision.contains("A l'unanimité,")));
-                                    currentDecision = null;
-                                    currentDiscussion = null;
-                                } else if (tok.type == Token.TokenType.DISCUSSION) {
-                                    currentState = ParserStates.DEBATE;
-                                }
-                                buffer = new StringBuffer();
-                                buffer.append(tok.text);
-                            }
-                            break;
-                        }
-                        case DEBATE: {
-                            if (tok.type == Token.TokenType.TEXT || tok.type == Token.TokenType.DISCUSSION) {
-                                buffer.append(line + "\n");
-                            } else {
-                                currentDiscussion = buffer.toString();
-
-                                if (tok.type == Token.TokenType.DECISION) {
-                                    currentState = ParserStates.DECISION;
-                                } else if (tok.type == Token.TokenType.ITEM) {
-                                    currentState = ParserStates.TITLE;
-                                    map.put(currentTopic, new MeetingItem(currentTopic, currentDiscussion, currentDecision, currentDecision== null ? null :  currentDecision.contains("A l'unanimité,")));
-                                    currentDecision = null;
-                                    currentDiscussion = null;
-                                }
-                                buffer = new StringBuffer();
-                                buffer.append(tok.text);
-                            }
-                            break;
-                        }
-                        case TITLE: {
-                            if (tok.type == Token.TokenType.TEXT || tok.type == Token.TokenType.ITEM) {
-                                buffer.append(line + "\n");
-                            } else {
-                                currentTopic = buffer.toString();
-
-                                if (tok.type == Token.TokenType.DECISION) {
-                                    currentState = ParserStates.DECISION;
-                                }  else if (tok.type == Token.TokenType.DISCUSSION) {
-                                    currentState = ParserStates.DEBATE;
-                                }
-                                buffer = new StringBuffer();
-                                buffer.append(tok.text);
-                            }
-                            break;
-                        }
-                    }
-
-                }
-            }
-            switch (currentState) {
-                case TITLE: {
-                    currentTopic = buffer.toString();
-                    break;
-                }
-                case DECISION: {
-                    currentDecision = buffer.toString();
-                    break;
-                }
-                case DEBATE: {
-                    currentDiscussion = buffer.toString();
-                    break;
-                }
-            }
-            map.put(currentTopic, new MeetingItem(currentTopic, currentDiscussion, currentDecision, currentDecision== null ? null :  currentDecision.contains("A l'unanimité,")));
-            return map;
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        return new DebateItemSplitter(str).split();
     }
 
     private static Map<String,Integer> MONTHS_FR;
@@ -194,7 +91,7 @@ public class LaLouvMeetingParser implements MeetingParser {
                 Integer month = MONTHS_FR.get(matcher.group(2));
                 Integer year = Integer.parseInt(matcher.group(3));
 
-                return new Meeting(title, LocalDate.of(year, month, day));
+                return new Meeting(CITY, title, LocalDate.of(year, month, day));
             }
         }
         throw new IllegalArgumentException("No title could be found in text");
@@ -233,7 +130,7 @@ public class LaLouvMeetingParser implements MeetingParser {
             } else if (token.toUpperCase().equals(token)){
 
                 //it's a name
-                persons.add(new Person(token));
+                persons.add(Person.of(token));
                 if (token.startsWith("MD.")){
                     LOG.debug("Problew with {}", token);
                 }
@@ -244,9 +141,24 @@ public class LaLouvMeetingParser implements MeetingParser {
         return persons;
     }
 
+    @Override
+    public String getVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public List<String> getSignatureMarkers() {
+        return Collections.singletonList(TITLE_MARKER);
+    }
+
+    @Override
+    public Session open(Consumer<MeetingItem> itemListener) {
+        return new StreamingMinutesParser(this, itemListener);
+    }
+
     @Override
     public Meeting parse(String meetingText) {
-        int index = meetingText.indexOf("CONSEIL COMMUNAL DU");
+        int index = meetingText.indexOf(TITLE_MARKER);
         if (index < 0) {
             throw new IllegalArgumentException("Unable to find start of meeting minutes");
         } else if (index > 0){
@@ -257,9 +169,9 @@ public class LaLouvMeetingParser implements MeetingParser {
         if (split.size() != 2){
             throw new IllegalArgumentException("Unable to split the input text into foreword and debate items");
         }
-        Meeting meeting = createMeeting(split.get(0));
-        meeting = meeting.addAll(splitDebateItems(split.get(1)).values());
-        meeting = meeting.addAttendees(extractAttendees(split.get(0)));
-        return meeting;
+        return createMeeting(split.get(0)).toBuilder()
+                .addItems(splitDebateItems(split.get(1)).values())
+                .addAttendees(extractAttendees(split.get(0)))
+                .build();
     }
 }
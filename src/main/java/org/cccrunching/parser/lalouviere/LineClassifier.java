@@ -0,0 +1,122 @@
+package org.cccrunching.parser.lalouviere;
+
+import org.cccrunching.parser.lalouviere.LaLouvMeetingParser.Token.TokenType;
+
+/**
+ * Decides the {@link TokenType} of a line of the minutes in a single pass, without allocating.
+ * It gives exactly the same answer as matching the line, in that order, against
+ * <ul>
+ *     <li>ITEM: <code>\s*([0-9]+\.- .*)</code></li>
+ *     <li>DECISION: <code>\s*Le Conseil,.*</code></li>
+ *     <li>DISCUSSION: <code>\s*(M\..*)\s*:.*</code></li>
+ * </ul>
+ * As the three patterns start with a different character once leading whitespace is skipped,
+ * that character is enough to know which one may apply.
+ */
+final class LineClassifier {
+
+    private static final String DECISION_MARKER = "Le Conseil,";
+
+    private LineClassifier(){
+    }
+
+    static TokenType classify(CharSequence line){
+        return classify(line, 0, line.length());
+    }
+
+    /**
+     * Classifies the characters of <code>text</code> between <code>start</code> (inclusive)
+     * and <code>end</code> (exclusive)
+     */
+    static TokenType classify(CharSequence text, int start, int end){
+        int i = skipWhitespace(text, start, end);
+        if (i == end){
+            return TokenType.TEXT;
+        }
+        char first = text.charAt(i);
+        if (first >= '0' && first <= '9'){
+            return isItem(text, i, end) ? TokenType.ITEM : TokenType.TEXT;
+        } else if (first == 'L'){
+            return regionMatches(text, i, end, DECISION_MARKER) && noLineTerminator(text, i + DECISION_MARKER.length(), end)
+                    ? TokenType.DECISION : TokenType.TEXT;
+        } else if (first == 'M'){
+            return isDiscussion(text, i, end) ? TokenType.DISCUSSION : TokenType.TEXT;
+        }
+        return TokenType.TEXT;
+    }
+
+    // [0-9]+\.- .*
+    private static boolean isItem(CharSequence text, int i, int end){
+        while (i < end && text.charAt(i) >= '0' && text.charAt(i) <= '9'){
+            i++;
+        }
+        return regionMatches(text, i, end, ".- ") && noLineTerminator(text, i + 3, end);
+    }
+
+    // M\..*\s*:.*
+    private static boolean isDiscussion(CharSequence text, int i, int end){
+        if (i + 1 >= end || text.charAt(i + 1) != '.'){
+            return false;
+        }
+        int from = i + 2;
+        int firstTerminator = -1;
+        int lastTerminator = -1;
+        int firstColon = -1;
+        for (int j = from; j < end; j++){
+            char c = text.charAt(j);
+            if (isLineTerminator(c)){
+                if (firstTerminator < 0){
+                    firstTerminator = j;
+                }
+                lastTerminator = j;
+            } else if (c == ':' && firstColon < 0){
+                firstColon = j;
+            }
+        }
+        if (firstTerminator < 0){
+            return firstColon >= 0;
+        }
+        // '.' cannot cross a line terminator, only the \s* before the colon can (for \n and \r):
+        // the colon must directly follow whitespace starting at the first terminator, and come after the last one
+        int colon = skipWhitespace(text, firstTerminator, end);
+        return colon < end && text.charAt(colon) == ':' && colon > lastTerminator;
+    }
+
+    private static int skipWhitespace(CharSequence text, int i, int end){
+        while (i < end && isWhitespace(text.charAt(i))){
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean regionMatches(CharSequence text, int i, int end, String expected){
+        if (end - i < expected.length()){
+            return false;
+        }
+        for (int k = 0; k < expected.length(); k++){
+            if (text.charAt(i + k) != expected.charAt(k)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean noLineTerminator(CharSequence text, int i, int end){
+        for (; i < end; i++){
+            if (isLineTerminator(text.charAt(i))){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // \s in java.util.regex
+    private static boolean isWhitespace(char c){
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    // characters not matched by '.' in java.util.regex
+    private static boolean isLineTerminator(char c){
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+}
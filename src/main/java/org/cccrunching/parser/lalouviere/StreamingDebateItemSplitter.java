@@ -0,0 +1,64 @@
+package org.cccrunching.parser.lalouviere;
+
+import org.cccrunching.data.MeetingItem;
+
+import java.util.function.Consumer;
+
+/**
+ * Splits the debate part of the minutes into items from its lines, as they come.
+ * <p>
+ * Unlike {@link DebateItemSplitter}, there is no source text to point into: the current block is
+ * copied line by line and turned into a string when it ends.
+ */
+final class StreamingDebateItemSplitter extends DebateStateMachine<String> {
+
+    private final StringBuilder head = new StringBuilder();
+    private final StringBuilder body = new StringBuilder();
+    private boolean hasBody;
+
+    // current line
+    private CharSequence line;
+
+    StreamingDebateItemSplitter(Consumer<MeetingItem> itemListener){
+        super(itemListener);
+    }
+
+    /**
+     * @param line a line of the debate without its terminator, only read during the call
+     */
+    void accept(CharSequence line){
+        this.line = line;
+        line(LineClassifier.classify(line), line.length() == 0);
+        this.line = null;
+    }
+
+    @Override
+    boolean isBlockEmpty(){
+        return head.length() == 0 && !hasBody;
+    }
+
+    @Override
+    void startBlock(){
+        head.setLength(0);
+        head.append(line);
+        body.setLength(0);
+        hasBody = false;
+    }
+
+    @Override
+    void appendLine(){
+        // an unterminated last line gets its '\n' as well
+        body.append(line).append('\n');
+        hasBody = true;
+    }
+
+    @Override
+    String text(String block){
+        return block;
+    }
+
+    @Override
+    String endBlock(){
+        return hasBody ? head.toString() + body : head.toString();
+    }
+}
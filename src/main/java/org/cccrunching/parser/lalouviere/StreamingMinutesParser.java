@@ -0,0 +1,178 @@
+package org.cccrunching.parser.lalouviere;
+
+import org.cccrunching.data.Meeting;
+import org.cccrunching.data.MeetingItem;
+import org.cccrunching.data.Person;
+import org.cccrunching.parser.StreamingMeetingParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+
+/**
+ * Line by line version of {@link LaLouvMeetingParser#parse(String)}. Only the foreword, from the title
+ * to the opening of the meeting, is kept in memory; the debate lines go straight to a
+ * {@link StreamingDebateItemSplitter}.
+ * <p>
+ * Neither the title marker nor the opening sentence can span a line break, so looking for them line
+ * by line finds the same occurrences as in the whole text. The foreword is rebuilt with '\n' line
+ * terminators, which only matters for texts using '\r'.
+ */
+final class StreamingMinutesParser implements StreamingMeetingParser.Session {
+
+    private final static Logger LOG = LoggerFactory.getLogger(StreamingMinutesParser.class);
+
+    private enum Phase {
+        /** looking for the title marker */
+        PREAMBLE,
+        /** from the title to the opening of the meeting */
+        FOREWORD,
+        /** after the opening of the meeting */
+        DEBATE,
+        /** after a second opening, only more openings may follow */
+        TRAILER
+    }
+
+    private final LaLouvMeetingParser parser;
+    private final StreamingDebateItemSplitter debate;
+    private final StringBuilder foreword = new StringBuilder();
+    private Phase phase = Phase.PREAMBLE;
+    private long skipped;
+    private boolean debateEmpty = true;
+    private boolean trailerValid = true;
+    private Meeting.Builder meeting;
+    private List<Person> attendees;
+    private IllegalArgumentException failure;
+
+    StreamingMinutesParser(LaLouvMeetingParser parser, Consumer<MeetingItem> itemListener){
+        this.parser = parser;
+        this.debate = new StreamingDebateItemSplitter(itemListener);
+    }
+
+    @Override
+    public void line(CharSequence line, boolean terminated) {
+        if (failure != null) {
+            return;
+        }
+        try {
+            switch (phase) {
+                case PREAMBLE: {
+                    int index = indexOf(line, LaLouvMeetingParser.TITLE_MARKER);
+                    if (index < 0) {
+                        skipped += line.length() + (terminated ? 1 : 0);
+                    } else {
+                        skipped += index;
+                        phase = Phase.FOREWORD;
+                        foreword(line, index, terminated);
+                    }
+                    break;
+                }
+                case FOREWORD: {
+                    foreword(line, 0, terminated);
+                    break;
+                }
+                case DEBATE: {
+                    debate(line, 0, terminated);
+                    break;
+                }
+                case TRAILER: {
+                    trailer(line, 0, terminated);
+                    break;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // reported by finish(), the remaining lines are ignored
+            failure = e;
+        }
+    }
+
+    private void foreword(CharSequence line, int start, boolean terminated){
+        Matcher opening = LaLouvMeetingParser.PATTERN_OPENING.matcher(line).region(start, line.length());
+        if (!opening.find()) {
+            foreword.append(line, start, line.length());
+            if (terminated) {
+                foreword.append('\n');
+            }
+            return;
+        }
+        foreword.append(line, start, opening.start());
+        String text = foreword.toString();
+        meeting = parser.createMeeting(text).toBuilder();
+        attendees = parser.extractAttendees(text);
+        phase = Phase.DEBATE;
+        debate(line, opening.end(), terminated);
+    }
+
+    private void debate(CharSequence line, int start, boolean terminated){
+        Matcher opening = LaLouvMeetingParser.PATTERN_OPENING.matcher(line).region(start, line.length());
+        if (opening.find()) {
+            // the debate ends there, like the second part of LaLouvMeetingParser.extractAgendaItems
+            if (opening.start() > start) {
+                debateEmpty = false;
+                debate.accept(line.subSequence(start, opening.start()));
+            }
+            phase = Phase.TRAILER;
+            trailer(line, opening.end(), terminated);
+            return;
+        }
+        if (start < line.length() || terminated) {
+            debateEmpty = false;
+            debate.accept(start == 0 ? line : line.subSequence(start, line.length()));
+        }
+    }
+
+    /**
+     * Splitting on the opening sentence only yields a foreword and a debate when whatever follows a second
+     * opening is empty, possibly after more adjacent openings
+     */
+    private void trailer(CharSequence line, int start, boolean terminated){
+        Matcher opening = LaLouvMeetingParser.PATTERN_OPENING.matcher(line);
+        int position = start;
+        while (position < line.length()) {
+            opening.region(position, line.length());
+            if (!opening.lookingAt() || opening.end() == position) {
+                trailerValid = false;
+                return;
+            }
+            position = opening.end();
+        }
+        if (terminated) {
+            trailerValid = false;
+        }
+    }
+
+    private static int indexOf(CharSequence text, String marker){
+        int last = text.length() - marker.length();
+        for (int i = 0; i <= last; i++) {
+            int j = 0;
+            while (j < marker.length() && text.charAt(i + j) == marker.charAt(j)) {
+                j++;
+            }
+            if (j == marker.length()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public Meeting finish() {
+        if (failure != null) {
+            throw failure;
+        }
+        if (phase == Phase.PREAMBLE) {
+            throw new IllegalArgumentException("Unable to find start of meeting minutes");
+        } else if (skipped > 0) {
+            LOG.info("Skipped the first {} characters from the minute (fast forward to title)", skipped);
+        }
+        if (phase == Phase.FOREWORD || debateEmpty || !trailerValid) {
+            throw new IllegalArgumentException("Unable to split the input text into foreword and debate items");
+        }
+        return meeting
+                .addItems(debate.finish().values())
+                .addAttendees(attendees)
+                .build();
+    }
+}
@@ -2,12 +2,29 @@ package org.cccrunching.search;
 
 import com.google.common.base.Charsets;
 import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
 import org.cccrunching.data.Meeting;
 import org.apache.commons.io.IOUtils;
+import org.cccrunching.data.json.MeetingJson;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.ResourceAlreadyExistsException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.bulk.*;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetRequestBuilder;
+import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.client.transport.TransportClient;
+import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.transport.TransportAddress;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
 import org.elasticsearch.transport.client.PreBuiltTransportClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,49 +32,317 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
-import java.util.Collection;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
 
 public class ESIndexer implements Indexer, AutoCloseable{
 
     private static final Logger LOG = LoggerFactory.getLogger(ESIndexer.class);
 
+    static final String INDEX = "citycouncil";
+    static final String TYPE = "meetingminute";
+    static final String FIELD_CONTENT_HASH = "contentHash";
+
+    /**
+     * Source of the content hashes of the meetings already in the index
+     */
+    interface IndexedHashes {
+        /**
+         * @return the content hash by meeting id, meetings missing from the index are left out
+         */
+        Map<String, String> lookup(List<String> ids);
+    }
+
+    /**
+     * Tuning of the bulk requests sent to the cluster
+     */
+    public static class BulkSettings {
+
+        private int batchSize = 500;
+        private ByteSizeValue batchBytes = new ByteSizeValue(5, ByteSizeUnit.MB);
+        private TimeValue flushInterval = TimeValue.timeValueSeconds(1);
+        private int concurrentRequests = 2;
+        private TimeValue initialBackoff = TimeValue.timeValueMillis(100);
+        private int maxRetries = 5;
+        private TimeValue closeTimeout = TimeValue.timeValueMinutes(5);
+
+        /**
+         * Maximum number of meetings per bulk request
+         */
+        public BulkSettings batchSize(int batchSize){
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * Maximum size of a bulk request, a request is sent as soon as either limit is reached
+         */
+        public BulkSettings batchBytes(ByteSizeValue batchBytes){
+            this.batchBytes = batchBytes;
+            return this;
+        }
+
+        /**
+         * Delay after which a partial batch is sent anyway
+         */
+        public BulkSettings flushInterval(TimeValue flushInterval){
+            this.flushInterval = flushInterval;
+            return this;
+        }
+
+        /**
+         * Number of bulk requests in flight, adding meetings blocks once this many requests are pending.
+         * With 0 every request is executed synchronously.
+         */
+        public BulkSettings concurrentRequests(int concurrentRequests){
+            this.concurrentRequests = concurrentRequests;
+            return this;
+        }
+
+        /**
+         * Exponential backoff applied to the batches rejected by an overloaded cluster
+         */
+        public BulkSettings backoff(TimeValue initialBackoff, int maxRetries){
+            this.initialBackoff = initialBackoff;
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
+        /**
+         * Maximum time to wait for the pending requests at the end of the indexing
+         */
+        public BulkSettings closeTimeout(TimeValue closeTimeout){
+            this.closeTimeout = closeTimeout;
+            return this;
+        }
+    }
+
     private final String host = "localhost";
     private final TransportClient client;
+    private final BiConsumer<BulkRequest, ActionListener<BulkResponse>> bulkTransport;
+    private final IndexedHashes indexedHashes;
+    private final BulkSettings settings;
+    private final Gson gson = MeetingJson.gson();
 
     public ESIndexer(){
+        this(new BulkSettings());
+    }
+
+    public ESIndexer(BulkSettings settings){
         try {
             client = new PreBuiltTransportClient(Settings.EMPTY)
                     .addTransportAddress(new TransportAddress(InetAddress.getByName(host), 9300));
         }catch (UnknownHostException e) {
             throw new RuntimeException("Unable to connect to elasticsearch on "+host, e);
         }
+        this.bulkTransport = client::bulk;
+        this.indexedHashes = this::indexedContentHashes;
+        this.settings = settings;
+    }
+
+    /**
+     * Indexer sending its bulk requests to the given transport instead of a cluster, for testing purposes
+     */
+    ESIndexer(BiConsumer<BulkRequest, ActionListener<BulkResponse>> bulkTransport, BulkSettings settings){
+        this(bulkTransport, ids -> Collections.emptyMap(), settings);
+    }
+
+    ESIndexer(BiConsumer<BulkRequest, ActionListener<BulkResponse>> bulkTransport, IndexedHashes indexedHashes, BulkSettings settings){
+        this.client = null;
+        this.bulkTransport = bulkTransport;
+        this.indexedHashes = indexedHashes;
+        this.settings = settings;
     }
 
     public void close(){
-        this.client.close();
+        if (client != null) {
+            this.client.close();
+        }
     }
 
-    private void initializeMapping(){
+    /**
+     * @return the body of the request creating the index, with the mapping of the meetings
+     */
+    static String indexDefinition(){
         try {
-            String mapping = IOUtils.toString(this.getClass().getResourceAsStream("/search/minute-mapping.json"),Charsets.UTF_8);
-            client.admin().indices().prepareCreate("citycouncil").addMapping("meetingminute", mapping);
+            return IOUtils.toString(ESIndexer.class.getResourceAsStream("/search/minute-mapping.json"),Charsets.UTF_8);
         } catch (IOException e) {
             throw new RuntimeException("Unable to read mapping definition file",e);
         }
     }
 
+    /**
+     * Creates the index with its mapping, unless it already exists
+     */
+    private void initializeMapping(){
+        if (client == null){
+            return;
+        }
+        try {
+            client.admin().indices().prepareCreate(INDEX).setSource(indexDefinition(), XContentType.JSON).get();
+            LOG.info("Created index {}", INDEX);
+        } catch (ElasticsearchException e) {
+            // the transport client reports the failure of the node wrapped in a RemoteTransportException
+            if (!(ExceptionsHelper.unwrapCause(e) instanceof ResourceAlreadyExistsException)) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * The document is the JSON of the meeting, with the content hashes of the meeting and of its items
+     */
+    IndexRequest indexRequest(Meeting meeting){
+        JsonObject source = gson.toJsonTree(meeting).getAsJsonObject();
+        source.addProperty(FIELD_CONTENT_HASH, meeting.getContentHash());
+        JsonArray items = source.getAsJsonArray("items");
+        for (int i = 0; i < items.size(); i++) {
+            items.get(i).getAsJsonObject().addProperty(FIELD_CONTENT_HASH, meeting.getItems().get(i).getContentHash());
+        }
+        return new IndexRequest(INDEX, TYPE, meeting.getId())
+                .source(gson.toJson(source).getBytes(Charsets.UTF_8), XContentType.JSON);
+    }
+
+    private Map<String, String> indexedContentHashes(List<String> ids){
+        FetchSourceContext hashOnly = new FetchSourceContext(true, new String[]{FIELD_CONTENT_HASH}, Strings.EMPTY_ARRAY);
+        MultiGetRequestBuilder request = client.prepareMultiGet();
+        for (String id : ids) {
+            request.add(new MultiGetRequest.Item(INDEX, TYPE, id).fetchSourceContext(hashOnly));
+        }
+        Map<String, String> hashes = new HashMap<>();
+        for (MultiGetItemResponse item : request.get()) {
+            // items fail when the index does not exist yet, the meetings are then all new
+            if (!item.isFailed() && item.getResponse().isExists()) {
+                Object hash = item.getResponse().getSourceAsMap().get(FIELD_CONTENT_HASH);
+                if (hash != null) {
+                    hashes.put(item.getId(), hash.toString());
+                }
+            }
+        }
+        return hashes;
+    }
+
+    /**
+     * @return the meetings that are not indexed yet or whose content changed since they were indexed,
+     * looked up by batches of {@link BulkSettings#batchSize(int)} ids
+     */
+    List<Meeting> changedMeetings(Collection<Meeting> meetings){
+        List<Meeting> changed = new ArrayList<>();
+        List<Meeting> batch = new ArrayList<>(settings.batchSize);
+        for (Meeting meeting : meetings) {
+            batch.add(meeting);
+            if (batch.size() == settings.batchSize) {
+                addChanged(batch, changed);
+            }
+        }
+        addChanged(batch, changed);
+        return changed;
+    }
+
+    private void addChanged(List<Meeting> batch, List<Meeting> changed){
+        if (batch.isEmpty()) {
+            return;
+        }
+        Map<String, String> hashes = indexedHashes.lookup(batch.stream().map(Meeting::getId).collect(Collectors.toList()));
+        for (Meeting meeting : batch) {
+            if (!meeting.getContentHash().equals(hashes.get(meeting.getId()))) {
+                changed.add(meeting);
+            }
+        }
+        batch.clear();
+    }
+
+    /**
+     * Indexes the meetings that are new or changed, the unchanged ones are skipped
+     */
     @Override
-    public void index(Collection<Meeting> meetings) {
-        LOG.info("Indexing {} meetings", meetings.size());
-            Gson gson = new Gson();
-            initializeMapping();
-            meetings.forEach( m ->
-                client.prepareIndex("citycouncil", "meetingminute", m.getId())
-                        .setSource(
-                                gson.toJson(m).getBytes(Charsets.UTF_8),
-                                XContentType.JSON
-                        )
-                        .get()
-        );
+    public void index(Collection<Meeting> allMeetings) {
+        initializeMapping();
+        List<Meeting> meetings = changedMeetings(allMeetings);
+        LOG.info("Indexing {} new or changed meetings out of {}", meetings.size(), allMeetings.size());
+        BatchListener listener = new BatchListener();
+        BulkProcessor processor = BulkProcessor.builder(bulkTransport, listener)
+                .setBulkActions(settings.batchSize)
+                .setBulkSize(settings.batchBytes)
+                .setFlushInterval(settings.flushInterval)
+                .setConcurrentRequests(settings.concurrentRequests)
+                .setBackoffPolicy(BackoffPolicy.exponentialBackoff(settings.initialBackoff, settings.maxRetries))
+                .build();
+        try {
+            meetings.forEach(m -> processor.add(indexRequest(m)));
+            if (!processor.awaitClose(settings.closeTimeout.millis(), TimeUnit.MILLISECONDS)){
+                throw new RuntimeException("Pending bulk requests did not complete within "+settings.closeTimeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for bulk requests", e);
+        }
+        LOG.info("Indexed {} meetings in {} batches, {} failed", listener.indexed.get(), listener.batches.get(), listener.failed.get());
+        if (listener.failed.get() > 0){
+            throw new RuntimeException(listener.failed.get()+" meetings could not be indexed, see the log for the failed batches");
+        }
+    }
+
+    private static class BatchListener implements BulkProcessor.Listener {
+
+        private final AtomicLong batches = new AtomicLong();
+        private final AtomicLong indexed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        // flight recorder events of the batches in flight, by execution id
+        private final Map<Long, IndexBatchEvent> events = new ConcurrentHashMap<>();
+
+        @Override
+        public void beforeBulk(long executionId, BulkRequest request) {
+            LOG.debug("Sending batch {} with {} meetings ({} bytes)", executionId, request.numberOfActions(), request.estimatedSizeInBytes());
+            IndexBatchEvent event = new IndexBatchEvent();
+            if (event.isEnabled()) {
+                event.begin();
+                events.put(executionId, event);
+            }
+        }
+
+        private void commitEvent(long executionId, BulkRequest request, long failures){
+            IndexBatchEvent event = events.remove(executionId);
+            if (event != null) {
+                event.indexer = "elasticsearch";
+                event.batchId = executionId;
+                event.meetings = request.numberOfActions();
+                event.documents = request.numberOfActions();
+                event.bytes = request.estimatedSizeInBytes();
+                event.failed = (int) failures;
+                event.commit();
+            }
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+            batches.incrementAndGet();
+            long failures = 0;
+            for (BulkItemResponse item : response.getItems()){
+                if (item.isFailed()){
+                    failures++;
+                }
+            }
+            indexed.addAndGet(response.getItems().length - failures);
+            failed.addAndGet(failures);
+            commitEvent(executionId, request, failures);
+            if (failures > 0){
+                LOG.warn("Batch {}: {} of {} meetings failed: {}", executionId, failures, request.numberOfActions(), response.buildFailureMessage());
+            } else {
+                LOG.debug("Batch {} indexed in {}", executionId, response.getTook());
+            }
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, Throwable failure) {
+            batches.incrementAndGet();
+            failed.addAndGet(request.numberOfActions());
+            commitEvent(executionId, request, request.numberOfActions());
+            LOG.warn("Batch {} of {} meetings failed", executionId, request.numberOfActions(), failure);
+        }
     }
 }
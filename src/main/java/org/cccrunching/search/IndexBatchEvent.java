@@ -0,0 +1,32 @@
+package org.cccrunching.search;
+
+import jdk.jfr.*;
+
+/**
+ * Flight recorder event covering one batch of meetings sent to an index
+ */
+@Name("org.cccrunching.IndexBatch")
+@Label("Index Batch")
+@Category({"CCCrunching", "Indexing"})
+@Description("Batch of meetings written to a Lucene index or sent to Elasticsearch")
+class IndexBatchEvent extends Event {
+
+    @Label("Indexer")
+    String indexer;
+
+    @Label("Batch Id")
+    long batchId;
+
+    @Label("Meetings")
+    int meetings;
+
+    @Label("Documents")
+    int documents;
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+
+    @Label("Failed Meetings")
+    int failed;
+}
@@ -0,0 +1,167 @@
+package org.cccrunching.search;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.fr.FrenchAnalyzer;
+import org.apache.lucene.document.*;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.*;
+import org.apache.lucene.store.MMapDirectory;
+import org.cccrunching.data.Meeting;
+import org.cccrunching.data.MeetingItem;
+import org.cccrunching.data.Person;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Indexer writing to a local Lucene index, for full-text search without an Elasticsearch cluster.
+ * <p>
+ * Meetings, items and attendees are indexed as separate documents distinguished by the
+ * {@link #FIELD_TYPE} field, all of them carrying the id of their meeting. Indexing a meeting
+ * again replaces all its documents, unless the content hash stored with the meeting shows it
+ * did not change. Text fields are analyzed with the {@link FrenchAnalyzer}.
+ */
+public class LuceneIndexer implements Indexer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LuceneIndexer.class);
+
+    public enum DocumentType { MEETING, ITEM, ATTENDEE }
+
+    static final String FIELD_TYPE = "type";
+    static final String FIELD_MEETING_ID = "meetingId";
+    static final String FIELD_MEETING_DATE = "meetingDate";
+    static final String FIELD_TITLE = "title";
+    static final String FIELD_DISCUSSION = "discussion";
+    static final String FIELD_DECISION = "decision";
+    static final String FIELD_UNANIMOUS = "unanimous";
+    static final String FIELD_NAME = "name";
+    static final String FIELD_CONTENT_HASH = "contentHash";
+
+    static Analyzer analyzer(){
+        return new FrenchAnalyzer();
+    }
+
+    private final MMapDirectory directory;
+    private final IndexWriter writer;
+
+    public LuceneIndexer(Path indexDirectory){
+        try {
+            directory = new MMapDirectory(indexDirectory);
+            IndexWriterConfig config = new IndexWriterConfig(analyzer())
+                    .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+            writer = new IndexWriter(directory, config);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open Lucene index in "+indexDirectory, e);
+        }
+    }
+
+    @Override
+    public void index(Collection<Meeting> meetings) {
+        LOG.info("Indexing {} meetings", meetings.size());
+        IndexBatchEvent event = new IndexBatchEvent();
+        event.begin();
+        int documentCount = 0;
+        int unchanged = 0;
+        try (DirectoryReader reader = DirectoryReader.open(writer)) {
+            IndexSearcher searcher = new IndexSearcher(reader);
+            for (Meeting meeting : meetings) {
+                if (meeting.getContentHash().equals(indexedContentHash(searcher, meeting.getId()))) {
+                    unchanged++;
+                    continue;
+                }
+                List<Document> documents = documents(meeting);
+                writer.updateDocuments(new Term(FIELD_MEETING_ID, meeting.getId()), documents);
+                documentCount += documents.size();
+            }
+            writer.commit();
+            LOG.info("Indexed {} meetings, {} were unchanged", meetings.size() - unchanged, unchanged);
+        } catch (IOException e) {
+            event.failed = meetings.size();
+            throw new UncheckedIOException("Unable to index meetings", e);
+        } finally {
+            event.indexer = "lucene";
+            event.meetings = meetings.size();
+            event.documents = documentCount;
+            event.commit();
+        }
+    }
+
+    /**
+     * @return the content hash of the meeting as last indexed, null if not indexed yet
+     */
+    private static String indexedContentHash(IndexSearcher searcher, String meetingId) throws IOException {
+        Query query = new BooleanQuery.Builder()
+                .add(new TermQuery(new Term(FIELD_MEETING_ID, meetingId)), BooleanClause.Occur.FILTER)
+                .add(new TermQuery(new Term(FIELD_TYPE, DocumentType.MEETING.name())), BooleanClause.Occur.FILTER)
+                .build();
+        TopDocs top = searcher.search(query, 1);
+        if (top.scoreDocs.length == 0) {
+            return null;
+        }
+        return searcher.doc(top.scoreDocs[0].doc).get(FIELD_CONTENT_HASH);
+    }
+
+    List<Document> documents(Meeting meeting){
+        List<Document> documents = new ArrayList<>(1 + meeting.getItems().size() + meeting.getAttendees().size());
+        Document meetingDoc = document(DocumentType.MEETING, meeting);
+        meetingDoc.add(new TextField(FIELD_TITLE, meeting.getTitle(), Field.Store.YES));
+        meetingDoc.add(new StringField(FIELD_CONTENT_HASH, meeting.getContentHash(), Field.Store.YES));
+        documents.add(meetingDoc);
+
+        for (MeetingItem item : meeting.getItems()) {
+            Document itemDoc = document(DocumentType.ITEM, meeting);
+            itemDoc.add(new StringField(FIELD_CONTENT_HASH, item.getContentHash(), Field.Store.YES));
+            addText(itemDoc, FIELD_TITLE, item.getTitle());
+            addText(itemDoc, FIELD_DISCUSSION, item.getDiscussion());
+            addText(itemDoc, FIELD_DECISION, item.getDecision());
+            item.isUnanimousVote().ifPresent(u -> itemDoc.add(new StringField(FIELD_UNANIMOUS, u.toString(), Field.Store.YES)));
+            documents.add(itemDoc);
+        }
+
+        for (Person attendee : meeting.getAttendees()) {
+            Document attendeeDoc = document(DocumentType.ATTENDEE, meeting);
+            // names come as "J.GOBERT", the initial is split off so that the surname alone matches
+            attendeeDoc.add(new StoredField(FIELD_NAME, attendee.getName()));
+            attendeeDoc.add(new TextField(FIELD_NAME, attendee.getName().replace('.', ' '), Field.Store.NO));
+            documents.add(attendeeDoc);
+        }
+        return documents;
+    }
+
+    private static Document document(DocumentType type, Meeting meeting){
+        Document doc = new Document();
+        doc.add(new StringField(FIELD_TYPE, type.name(), Field.Store.YES));
+        doc.add(new StringField(FIELD_MEETING_ID, meeting.getId(), Field.Store.YES));
+        meeting.getMeetingDate().ifPresent(date -> {
+            doc.add(new LongPoint(FIELD_MEETING_DATE, date.toEpochDay()));
+            doc.add(new NumericDocValuesField(FIELD_MEETING_DATE, date.toEpochDay()));
+            doc.add(new StoredField(FIELD_MEETING_DATE, date.toEpochDay()));
+        });
+        return doc;
+    }
+
+    private static void addText(Document doc, String field, String value){
+        if (value != null) {
+            doc.add(new TextField(field, value, Field.Store.YES));
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            writer.close();
+            directory.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to close Lucene index", e);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package org.cccrunching.search;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.search.*;
+import org.apache.lucene.store.MMapDirectory;
+import org.cccrunching.search.LuceneIndexer.DocumentType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.cccrunching.search.LuceneIndexer.*;
+
+/**
+ * Full-text search over an index written by the {@link LuceneIndexer}. Queries use the classic
+ * Lucene query syntax and are analyzed the same way as the indexed text.
+ * Instances are thread-safe and see the index as it was when they were opened.
+ */
+public class LuceneSearcher implements AutoCloseable {
+
+    public static class Hit {
+
+        private final DocumentType type;
+        private final float score;
+        private final Document document;
+
+        Hit(DocumentType type, float score, Document document){
+            this.type = type;
+            this.score = score;
+            this.document = document;
+        }
+
+        public DocumentType getType() {
+            return type;
+        }
+
+        public float getScore() {
+            return score;
+        }
+
+        public String getMeetingId() {
+            return document.get(FIELD_MEETING_ID);
+        }
+
+        public Optional<LocalDate> getMeetingDate() {
+            IndexableField date = document.getField(FIELD_MEETING_DATE);
+            return date == null ? Optional.empty() : Optional.of(LocalDate.ofEpochDay(date.numericValue().longValue()));
+        }
+
+        /**
+         * @return the title of meetings and items, the name of attendees
+         */
+        public String getText() {
+            return type == DocumentType.ATTENDEE ? document.get(FIELD_NAME) : document.get(FIELD_TITLE);
+        }
+
+        /**
+         * @return any stored field of the document, like {@link LuceneIndexer#FIELD_DECISION}
+         */
+        public String get(String field) {
+            return document.get(field);
+        }
+
+        @Override
+        public String toString() {
+            return "Hit{" +
+                    "type=" + type +
+                    ", score=" + score +
+                    ", meetingId='" + getMeetingId() + '\'' +
+                    ", text='" + getText() + '\'' +
+                    '}';
+        }
+    }
+
+    private final MMapDirectory directory;
+    private final DirectoryReader reader;
+    private final IndexSearcher searcher;
+
+    public LuceneSearcher(Path indexDirectory){
+        try {
+            directory = new MMapDirectory(indexDirectory);
+            reader = DirectoryReader.open(directory);
+            searcher = new IndexSearcher(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open Lucene index in "+indexDirectory, e);
+        }
+    }
+
+    public List<Hit> search(DocumentType type, String query, int maxHits){
+        return search(type, query, null, null, maxHits);
+    }
+
+    /**
+     * @param from first meeting date to consider, null for no lower bound
+     * @param to last meeting date to consider, null for no upper bound
+     */
+    public List<Hit> search(DocumentType type, String query, LocalDate from, LocalDate to, int maxHits){
+        BooleanQuery.Builder builder = new BooleanQuery.Builder()
+                .add(parse(type, query), BooleanClause.Occur.MUST)
+                .add(new TermQuery(new Term(FIELD_TYPE, type.name())), BooleanClause.Occur.FILTER);
+        if (from != null || to != null){
+            long lower = from == null ? Long.MIN_VALUE : from.toEpochDay();
+            long upper = to == null ? Long.MAX_VALUE : to.toEpochDay();
+            builder.add(LongPoint.newRangeQuery(FIELD_MEETING_DATE, lower, upper), BooleanClause.Occur.FILTER);
+        }
+        try {
+            TopDocs topDocs = searcher.search(builder.build(), maxHits);
+            List<Hit> hits = new ArrayList<>(topDocs.scoreDocs.length);
+            for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                hits.add(new Hit(type, scoreDoc.score, searcher.doc(scoreDoc.doc)));
+            }
+            return hits;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to search the index", e);
+        }
+    }
+
+    private static Query parse(DocumentType type, String query){
+        String[] fields;
+        switch (type){
+            case ITEM:     fields = new String[]{FIELD_TITLE, FIELD_DISCUSSION, FIELD_DECISION}; break;
+            case ATTENDEE: fields = new String[]{FIELD_NAME}; break;
+            default:       fields = new String[]{FIELD_TITLE};
+        }
+        try {
+            return new MultiFieldQueryParser(fields, analyzer()).parse(query);
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Invalid query: "+query, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            reader.close();
+            directory.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to close Lucene index", e);
+        }
+    }
+}
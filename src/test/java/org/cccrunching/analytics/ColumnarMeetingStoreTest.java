@@ -0,0 +1,97 @@
+package org.cccrunching.analytics;
+
+import org.cccrunching.analytics.ColumnarMeetingStore.Vote;
+import org.cccrunching.data.Meeting;
+import org.cccrunching.data.MeetingItem;
+import org.cccrunching.data.Person;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+public class ColumnarMeetingStoreTest {
+
+    private static final String[] NAMES = {"J.GOBERT", "D.STAQUET", "O.DESTREBECQ", "C.BURGEON", "M.ROLAND"};
+
+    /**
+     * Random meetings, a few of them without date
+     */
+    private static List<Meeting> meetings(Random random, int count){
+        List<Meeting> meetings = new ArrayList<>();
+        for (int m = 0; m < count; m++) {
+            LocalDate date = random.nextInt(10) == 0 ? null : LocalDate.of(2010, 1, 1).plusDays(random.nextInt(3000));
+            Meeting.Builder meeting = Meeting.builder("CONSEIL COMMUNAL " + m, date);
+            int items = random.nextInt(8);
+            for (int i = 0; i < items; i++) {
+                int vote = random.nextInt(3);
+                meeting.addItem(new MeetingItem(i + ".- Point", null, "décision", vote == 2 ? null : vote == 1));
+            }
+            for (String name : NAMES) {
+                if (random.nextBoolean()) {
+                    meeting.addAttendee(new Person(name));
+                }
+            }
+            meetings.add(meeting.build());
+        }
+        return meetings;
+    }
+
+    private static boolean inPeriod(Meeting meeting, LocalDate from, LocalDate to){
+        if (!meeting.getMeetingDate().isPresent()) {
+            return from == null;
+        }
+        LocalDate date = meeting.getMeetingDate().get();
+        return (from == null || !date.isBefore(from)) && (to == null || !date.isAfter(to));
+    }
+
+    private static long countItems(List<Meeting> meetings, Vote vote, LocalDate from, LocalDate to){
+        return meetings.stream()
+                .filter(m -> inPeriod(m, from, to))
+                .flatMap(m -> m.getItems().stream())
+                .map(i -> i.isUnanimousVote().map(u -> u ? Vote.UNANIMOUS : Vote.CONTENTIOUS).orElse(Vote.UNKNOWN))
+                .filter(vote::equals)
+                .count();
+    }
+
+    @Test
+    public void testAggregatesMatchStreams(){
+        Random random = new Random(7);
+        List<Meeting> meetings = meetings(random, 300);
+        ColumnarMeetingStore store = ColumnarMeetingStore.of(meetings);
+        assertEquals(meetings.size(), store.getMeetingCount());
+        assertEquals(meetings.stream().mapToInt(m -> m.getItems().size()).sum(), store.getItemCount());
+
+        List<LocalDate> bounds = new ArrayList<>(Arrays.asList(null, LocalDate.of(2009, 6, 1), LocalDate.of(2030, 1, 1)));
+        for (int i = 0; i < 20; i++) {
+            bounds.add(LocalDate.of(2010, 1, 1).plusDays(random.nextInt(3000)));
+        }
+        for (LocalDate from : bounds) {
+            for (LocalDate to : bounds) {
+                assertEquals(meetings.stream().filter(m -> inPeriod(m, from, to)).count(), store.countMeetings(from, to));
+                for (Vote vote : Vote.values()) {
+                    assertEquals(countItems(meetings, vote, from, to), store.countItems(vote, from, to));
+                }
+                Map<String, Integer> attendance = meetings.stream()
+                        .filter(m -> inPeriod(m, from, to))
+                        .flatMap(m -> m.getAttendees().stream())
+                        .collect(Collectors.groupingBy(Person::getName, TreeMap::new, Collectors.summingInt(p -> 1)));
+                assertEquals(attendance, store.attendance(from, to));
+                assertEquals(attendance.getOrDefault("J.GOBERT", 0).intValue(), store.countAttendance("J.GOBERT", from, to));
+            }
+        }
+    }
+
+    @Test
+    public void testBuilderIsFedFromSeveralThreads(){
+        List<Meeting> meetings = meetings(new Random(3), 1000);
+        ColumnarMeetingStore.Builder builder = ColumnarMeetingStore.builder();
+        meetings.parallelStream().forEach(builder);
+        ColumnarMeetingStore store = builder.build();
+        assertEquals(meetings.size(), store.getMeetingCount());
+        assertEquals(ColumnarMeetingStore.of(meetings).attendance(), store.attendance());
+        assertEquals(0, store.countAttendance("X.UNKNOWN", null, null));
+    }
+}
@@ -0,0 +1,121 @@
+package org.cccrunching.data;
+
+import com.google.gson.Gson;
+import org.cccrunching.data.json.MeetingJson;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class TextStoreTest {
+
+    private static String randomText(Random random, int length){
+        String alphabet = "abcdefghij éèàçù\n€";
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return text.toString();
+    }
+
+    @Test
+    public void testRoundTrip(){
+        // small blocks and cache, so that most reads inflate a block evicted earlier
+        TextStore store = new TextStore(256, 2);
+        Random random = new Random(42);
+        List<String> texts = new ArrayList<>();
+        List<Long> references = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            String text = i % 50 == 0 ? randomText(random, 1_000) : randomText(random, random.nextInt(100));
+            texts.add(text);
+            references.add(store.put(text));
+        }
+        texts.add("");
+        references.add(store.put(""));
+        assertEquals(TextStore.NONE, store.put(null));
+        assertNull(store.get(TextStore.NONE));
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < texts.size(); i++) {
+                int index = pass == 0 ? i : random.nextInt(texts.size());
+                assertEquals(texts.get(index), store.get(references.get(index)));
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentReadsAndWrites() throws InterruptedException, ExecutionException {
+        // blocks sealed, deflated, evicted and inflated again while other threads read and write
+        TextStore store = new TextStore(512, 2);
+        int threads = 4;
+        List<String> texts = new CopyOnWriteArrayList<>();
+        List<Long> references = new CopyOnWriteArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Random random = new Random(t);
+                tasks.add(executor.submit(() -> {
+                    for (int i = 0; i < 2_000; i++) {
+                        String text = randomText(random, random.nextInt(200));
+                        long reference = store.put(text);
+                        assertEquals(text, store.get(reference));
+                        synchronized (references) {
+                            texts.add(text);
+                            references.add(reference);
+                        }
+                        int other = random.nextInt(references.size());
+                        assertEquals(texts.get(other), store.get(references.get(other)));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        for (int i = 0; i < texts.size(); i++) {
+            assertEquals(texts.get(i), store.get(references.get(i)));
+        }
+    }
+
+    @Test
+    public void testRepetitiveTextsAreCompressed(){
+        TextStore store = new TextStore();
+        for (int i = 0; i < 10_000; i++) {
+            store.put("Le Conseil, à l'unanimité, décide d'approuver le point " + i + " de l'ordre du jour.");
+        }
+        assertTrue(store.getCompressedBytes() * 4 < store.getTextBytes());
+    }
+
+    @Test
+    public void testCompactedItemsAreEqual(){
+        TextStore store = new TextStore(64, 1);
+        Meeting meeting = Meeting.builder("La Louvière", "CONSEIL COMMUNAL DU LUNDI 27 NOVEMBRE 2017", LocalDate.of(2017, 11, 27))
+                .addItem(new MeetingItem("1.- Budget", "débat sur le budget", "A l'unanimité", true))
+                .addItem(new MeetingItem("2.- Voirie", null, "adopté", false))
+                .addItem(new MeetingItem("3.- Divers"))
+                .addAttendee(Person.of("J.GOBERT"))
+                .build();
+        Meeting compacted = meeting.compact(store);
+        assertEquals(meeting.getId(), compacted.getId());
+        assertEquals(meeting.getContentHash(), compacted.getContentHash());
+        assertEquals(meeting.getItems(), compacted.getItems());
+        for (int i = 0; i < meeting.getItems().size(); i++) {
+            MeetingItem item = meeting.getItems().get(i);
+            MeetingItem compactedItem = compacted.getItems().get(i);
+            assertEquals(item.getContentHash(), new MeetingItem(item.getTitle(), item.getDiscussion(), item.getDecision(),
+                    item.isUnanimousVote().orElse(null)).compact(new TextStore()).getContentHash());
+            assertEquals(item.isUnanimousVote(), compactedItem.isUnanimousVote());
+            assertSame(compactedItem, compactedItem.compact(new TextStore()));
+        }
+        Gson gson = MeetingJson.gson();
+        assertEquals(gson.toJson(meeting), gson.toJson(compacted));
+    }
+}
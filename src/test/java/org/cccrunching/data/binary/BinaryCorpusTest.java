@@ -0,0 +1,120 @@
+package org.cccrunching.data.binary;
+
+import org.cccrunching.data.Meeting;
+import org.cccrunching.data.MeetingItem;
+import org.cccrunching.data.Person;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class BinaryCorpusTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Meeting meeting(int index, LocalDate date){
+        return Meeting.builder(index % 3 == 0 ? null : "La Louvière", "CONSEIL COMMUNAL n°" + index, date)
+                .addItem(new MeetingItem(index + ".- Budget", "débat € " + index, "A l'unanimité", true))
+                .addItem(new MeetingItem(index + ".- Voirie", null, "adopté", false))
+                .addItem(new MeetingItem(index + ".- Divers"))
+                .addAttendee(Person.of("J.GOBERT"))
+                .addAttendee(Person.of("D.STAQUET", "Echevin"))
+                .build();
+    }
+
+    private static void assertSameMeeting(Meeting expected, Meeting actual){
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getContentHash(), actual.getContentHash());
+        assertEquals(expected.getItems(), actual.getItems());
+        for (int i = 0; i < expected.getItems().size(); i++) {
+            assertEquals(expected.getItems().get(i).isUnanimousVote(), actual.getItems().get(i).isUnanimousVote());
+        }
+        assertEquals(expected.getAttendees(), actual.getAttendees());
+    }
+
+    private Path write(List<Meeting> meetings) throws IOException {
+        Path file = folder.newFile().toPath();
+        try (BinaryCorpusWriter writer = new BinaryCorpusWriter(file)) {
+            meetings.forEach(writer);
+            assertEquals(meetings.size(), writer.getWritten());
+        }
+        return file;
+    }
+
+    @Test
+    public void testLookups() throws IOException {
+        Random random = new Random(42);
+        LocalDate start = LocalDate.of(2010, 1, 1);
+        List<Meeting> meetings = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            meetings.add(meeting(i, i % 50 == 0 ? null : start.plusDays(random.nextInt(3_650))));
+        }
+        // an id chosen by the caller, and a text larger than a 64 KB string of DataOutputStream
+        char[] longText = new char[100_000];
+        Arrays.fill(longText, 'é');
+        meetings.add(Meeting.builder("Ville", "Séance \uD834\uDD1E", start).id("custom-id")
+                .addItem(new MeetingItem("1.- Long", new String(longText), null, null)).build());
+        BinaryCorpus corpus = BinaryCorpus.open(write(meetings));
+
+        assertEquals(meetings.size(), corpus.size());
+        for (Meeting meeting : meetings) {
+            assertSameMeeting(meeting, corpus.get(meeting.getId()).get());
+        }
+        assertFalse(corpus.get("unknown").isPresent());
+        assertFalse(corpus.get("").isPresent());
+
+        List<Meeting> byDate = new ArrayList<>(meetings);
+        byDate.sort(Comparator.comparing(m -> m.getMeetingDate().orElse(LocalDate.MIN)));
+        assertEquals(ids(byDate), ids(corpus.getAll()));
+        for (int i = 0; i < 50; i++) {
+            LocalDate from = start.plusDays(random.nextInt(3_650));
+            LocalDate to = from.plusDays(random.nextInt(400));
+            List<Meeting> expected = byDate.stream()
+                    .filter(m -> m.getMeetingDate().map(d -> !d.isBefore(from) && !d.isAfter(to)).orElse(false))
+                    .collect(Collectors.toList());
+            assertEquals(ids(expected), ids(corpus.between(from, to)));
+        }
+        assertEquals(ids(byDate.subList(0, 6)), ids(corpus.between(null, start.minusDays(1))));
+        assertTrue(corpus.between(start.plusDays(10), start).isEmpty());
+    }
+
+    private static List<String> ids(List<Meeting> meetings){
+        return meetings.stream().map(Meeting::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testEmptyCorpus() throws IOException {
+        BinaryCorpus corpus = BinaryCorpus.open(write(Collections.emptyList()));
+        assertEquals(0, corpus.size());
+        assertFalse(corpus.get("unknown").isPresent());
+        assertTrue(corpus.getAll().isEmpty());
+    }
+
+    @Test
+    public void testInvalidFilesAreRejected() throws IOException {
+        Path file = write(Collections.singletonList(meeting(1, LocalDate.of(2017, 11, 27))));
+        byte[] bytes = Files.readAllBytes(file);
+        Path truncated = folder.newFile().toPath();
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 1));
+        Path unfinished = folder.newFile().toPath();
+        // a writer that was never closed leaves an empty header
+        Files.write(unfinished, new byte[bytes.length]);
+        for (Path invalid : Arrays.asList(truncated, unfinished, folder.newFile().toPath())) {
+            try {
+                BinaryCorpus.open(invalid);
+                fail("Invalid corpus should be rejected");
+            } catch (IOException e) {
+                // expected
+            }
+        }
+    }
+}
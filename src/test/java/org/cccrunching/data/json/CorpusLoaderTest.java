@@ -0,0 +1,72 @@
+package org.cccrunching.data.json;
+
+import com.google.gson.JsonSyntaxException;
+import org.cccrunching.data.Meeting;
+import org.cccrunching.data.MeetingItem;
+import org.cccrunching.data.Person;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CorpusLoaderTest {
+
+    private final CorpusLoader loader = new CorpusLoader();
+
+    private static List<Meeting> meetings(){
+        return Arrays.asList(
+                Meeting.builder("La Louvière", "CONSEIL COMMUNAL DU LUNDI 27 NOVEMBRE 2017", LocalDate.of(2017, 11, 27))
+                        .addItem(new MeetingItem("1.- Budget", "débat\n\"cité\"", "A l'unanimité", true))
+                        .addItem(new MeetingItem("2.- Voirie", null, "adopté", false))
+                        .addAttendee(Person.of("J.GOBERT"))
+                        .build(),
+                Meeting.builder("CONSEIL COMMUNAL", null).id("custom-id")
+                        .addItem(new MeetingItem("1.- Divers"))
+                        .build());
+    }
+
+    private List<Meeting> load(String json) throws IOException {
+        List<Meeting> loaded = new ArrayList<>();
+        assertEquals(loader.load(new StringReader(json), loaded::add), loaded.size());
+        return loaded;
+    }
+
+    private static void assertSameMeetings(List<Meeting> expected, List<Meeting> actual){
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getId(), actual.get(i).getId());
+            assertEquals(expected.get(i).getContentHash(), actual.get(i).getContentHash());
+        }
+    }
+
+    @Test
+    public void testLoadArray() throws IOException {
+        String json = MeetingJson.gson().toJson(meetings());
+        assertSameMeetings(meetings(), load(json));
+        assertSameMeetings(meetings(), load(MeetingJson.newBuilder().setPrettyPrinting().create().toJson(meetings())));
+        assertTrue(load("[]").isEmpty());
+        assertTrue(load("").isEmpty());
+    }
+
+    @Test
+    public void testLoadNdjson() throws IOException {
+        StringWriter ndjson = new StringWriter();
+        try (NdjsonMeetingWriter writer = new NdjsonMeetingWriter(ndjson, MeetingJson.gson())) {
+            meetings().forEach(writer);
+        }
+        assertSameMeetings(meetings(), load(ndjson.toString()));
+        assertSameMeetings(meetings().subList(0, 1), load(ndjson.toString().split("\n")[0]));
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void testContentAfterArrayIsRejected() throws IOException {
+        load(MeetingJson.gson().toJson(meetings()) + "{}");
+    }
+}
@@ -0,0 +1,87 @@
+package org.cccrunching.data.json;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import org.cccrunching.data.Meeting;
+import org.cccrunching.data.MeetingItem;
+import org.cccrunching.data.Person;
+import org.cccrunching.data.PersonDictionary;
+import org.junit.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.Assert.*;
+
+public class MeetingJsonTest {
+
+    private final Gson gson = MeetingJson.gson();
+
+    @Test
+    public void testItemJsonIsStable(){
+        assertEquals("{\"discussion\":\"débat\",\"title\":\"1.- Budget\",\"decision\":\"A l'unanimité\",\"unanimousVote\":true}",
+                gson.toJson(new MeetingItem("1.- Budget", "débat", "A l'unanimité", true)).replace("\\u0027", "'"));
+        assertEquals("{\"title\":\"2.- Voirie\",\"decision\":\"adopté\",\"unanimousVote\":false}",
+                gson.toJson(new MeetingItem("2.- Voirie", null, "adopté", false)));
+        assertEquals("{\"title\":\"3.- Divers\"}", gson.toJson(new MeetingItem("3.- Divers")));
+        assertEquals("{\"name\":\"J.GOBERT\"}", gson.toJson(new Person("J.GOBERT")));
+    }
+
+    @Test
+    public void testRoundTrip(){
+        Meeting meeting = Meeting.builder("La Louvière", "CONSEIL COMMUNAL DU LUNDI 27 NOVEMBRE 2017", LocalDate.of(2017, 11, 27))
+                .addItem(new MeetingItem("1.- Budget", "débat", "A l'unanimité", true))
+                .addItem(new MeetingItem("2.- Voirie", null, "adopté", false))
+                .addItem(new MeetingItem("3.- Divers"))
+                .addAttendee(Person.of("J.GOBERT"))
+                .addAttendee(Person.of("D.STAQUET", "Echevin"))
+                .build();
+        Meeting read = gson.fromJson(gson.toJson(meeting), Meeting.class);
+        assertEquals(meeting.getId(), read.getId());
+        assertEquals(meeting.getContentHash(), read.getContentHash());
+        assertEquals(meeting.getItems(), read.getItems());
+        assertSame(Boolean.FALSE, read.getItems().get(1).isUnanimousVote().get());
+        assertFalse(read.getItems().get(2).hasVote());
+        // persons read back are the interned instances
+        assertSame(meeting.getAttendees().get(0), read.getAttendees().get(0));
+        assertSame(meeting.getAttendees().get(1), read.getAttendees().get(1));
+    }
+
+    @Test
+    public void testMeetingJsonMatchesReflectiveSerialization(){
+        // the configuration before meetings had their own adapter
+        Gson reflective = new GsonBuilder()
+                .registerTypeAdapter(LocalDate.class, new LocalDateTypeAdapter())
+                .registerTypeAdapter(MeetingItem.class, new MeetingItemTypeAdapter())
+                .registerTypeAdapter(Person.class, new PersonTypeAdapter())
+                .create();
+        Meeting meeting = Meeting.builder("La Louvière", "CONSEIL COMMUNAL DU LUNDI 27 NOVEMBRE 2017", LocalDate.of(2017, 11, 27))
+                .addItem(new MeetingItem("1.- Budget", "débat", "A l'unanimité", true))
+                .addItem(new MeetingItem("2.- Divers"))
+                .addAttendee(Person.of("D.STAQUET", "Echevin"))
+                .build();
+        assertEquals(reflective.toJson(meeting), gson.toJson(meeting));
+        Meeting withoutCityAndDate = new Meeting("CONSEIL COMMUNAL");
+        assertEquals(reflective.toJson(withoutCityAndDate), gson.toJson(withoutCityAndDate));
+        // a meeting written without id gets the derived one
+        assertEquals(withoutCityAndDate.getId(), gson.fromJson("{\"title\":\"CONSEIL COMMUNAL\",\"unknown\":[1]}", Meeting.class).getId());
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void testMeetingWithoutTitleIsRejected(){
+        gson.fromJson("{\"items\":[]}", Meeting.class);
+    }
+
+    @Test
+    public void testPersonsAreInterned(){
+        PersonDictionary dictionary = new PersonDictionary();
+        Person gobert = dictionary.intern("J.GOBERT", null);
+        assertSame(gobert, dictionary.intern("J.GOBERT", null));
+        assertNotSame(gobert, dictionary.intern("J.GOBERT", "Bourgmestre"));
+        assertEquals(0, gobert.getId());
+        assertSame(gobert, dictionary.get(0));
+        assertEquals(2, dictionary.size());
+        assertEquals(-1, new Person("J.GOBERT").getId());
+        assertSame(new MeetingItem("1", null, "d", true).isUnanimousVote(), new MeetingItem("2", null, "d", true).isUnanimousVote());
+    }
+}
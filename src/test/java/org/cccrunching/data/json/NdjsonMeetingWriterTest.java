@@ -0,0 +1,96 @@
+package org.cccrunching.data.json;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import org.cccrunching.data.Meeting;
+import org.cccrunching.data.MeetingItem;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class NdjsonMeetingWriterTest {
+
+    private static final int THREADS = 8;
+    private static final int MEETINGS_PER_THREAD = 50;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Meeting meeting(int thread, int index){
+        StringBuilder discussion = new StringBuilder();
+        // long enough for writes of different threads to overlap, with line breaks that must be escaped
+        for (int i = 0; i < 200; i++) {
+            discussion.append("M.Gobert : intervention ").append(i).append('\n');
+        }
+        return Meeting.builder("La Louvière", "CONSEIL COMMUNAL " + thread + "-" + index, LocalDate.of(2017, 1 + thread, 1 + index % 28))
+                .addItem(new MeetingItem("1.- Budget", discussion.toString(), "A l'unanimité,", true))
+                .build();
+    }
+
+    @Test
+    public void testOneMeetingPerLine() throws IOException, InterruptedException, ExecutionException {
+        Path output = folder.getRoot().toPath().resolve("meetings.ndjson");
+        Set<String> expected = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try (NdjsonMeetingWriter writer = new NdjsonMeetingWriter(output)) {
+            List<Future<?>> writes = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                writes.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < MEETINGS_PER_THREAD; i++) {
+                        Meeting meeting = meeting(thread, i);
+                        expected.add(meeting.getContentHash());
+                        writer.accept(meeting);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> write : writes) {
+                write.get();
+            }
+            assertEquals(THREADS * MEETINGS_PER_THREAD, writer.getWritten());
+        } finally {
+            executor.shutdown();
+        }
+
+        String content = new String(Files.readAllBytes(output), StandardCharsets.UTF_8);
+        assertTrue(content.endsWith("\n"));
+        List<String> lines = Files.readAllLines(output, StandardCharsets.UTF_8);
+        assertEquals(THREADS * MEETINGS_PER_THREAD, lines.size());
+        CorpusLoader loader = new CorpusLoader();
+        Set<String> actual = new HashSet<>();
+        for (String line : lines) {
+            JsonElement json = new JsonParser().parse(line);
+            assertTrue(line, json.isJsonObject());
+            List<Meeting> read = new ArrayList<>();
+            assertEquals(1, loader.load(new StringReader(line), read::add));
+            actual.add(read.get(0).getContentHash());
+        }
+        assertEquals(expected, actual);
+        assertEquals(THREADS * MEETINGS_PER_THREAD, loader.load(output).size());
+    }
+
+    @Test
+    public void testNoMeeting() throws IOException {
+        Path output = folder.getRoot().toPath().resolve("meetings.ndjson");
+        try (NdjsonMeetingWriter writer = new NdjsonMeetingWriter(output)) {
+            assertEquals(0, writer.getWritten());
+        }
+        assertEquals(0, Files.size(output));
+        assertTrue(new CorpusLoader().load(output).isEmpty());
+    }
+}
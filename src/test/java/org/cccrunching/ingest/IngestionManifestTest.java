@@ -0,0 +1,159 @@
+package org.cccrunching.ingest;
+
+import org.cccrunching.data.Meeting;
+import org.cccrunching.data.MeetingItem;
+import org.cccrunching.parser.ExtractionProfile;
+import org.cccrunching.parser.MeetingParser;
+import org.cccrunching.parser.PDFExtractor;
+import org.cccrunching.parser.TestPdfs;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class IngestionManifestTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Meeting meeting(String title){
+        return Meeting.builder("La Louvière", title, LocalDate.of(2017, 11, 27))
+                .addItem(new MeetingItem("1.- Budget", "débat", "A l'unanimité", true))
+                .build();
+    }
+
+    /**
+     * @return a parser making a meeting of any text, counting the texts parsed
+     */
+    private static MeetingParser countingParser(AtomicInteger parsed){
+        return new MeetingParser() {
+            @Override
+            public Meeting parse(String meetingText) {
+                parsed.incrementAndGet();
+                return meeting(meetingText.trim());
+            }
+
+            @Override
+            public String getVersion() {
+                return "test-1";
+            }
+
+            @Override
+            public List<String> getSignatureMarkers() {
+                return Collections.singletonList("CONSEIL");
+            }
+        };
+    }
+
+    private static Path minutes(String name){
+        return Paths.get("minutes", name);
+    }
+
+    private static String[] storedMeetings(Path directory) throws IOException {
+        return directory.resolve("meetings").toFile().list();
+    }
+
+    @Test
+    public void testRecordAndLookup() throws IOException {
+        Path directory = folder.getRoot().toPath().resolve("manifest");
+        Path minutes = minutes("2017-11-27.pdf");
+        Path unparseable = minutes("cover.pdf");
+        IngestionManifest manifest = IngestionManifest.open(directory);
+        assertFalse(manifest.lookup(minutes, "hash1", "v1").isPresent());
+        manifest.record(minutes, "hash1", "v1", meeting("CONSEIL COMMUNAL"));
+        manifest.record(unparseable, "hash2", "v1", null);
+        manifest.save();
+
+        IngestionManifest reopened = IngestionManifest.open(directory);
+        Optional<IngestionManifest.Entry> entry = reopened.lookup(minutes, "hash1", "v1");
+        assertTrue(entry.isPresent());
+        Meeting loaded = reopened.load(entry.get()).get();
+        assertEquals(meeting("CONSEIL COMMUNAL").getContentHash(), loaded.getContentHash());
+        // files in another directory are the same input file
+        assertTrue(reopened.lookup(folder.getRoot().toPath().resolve("2017-11-27.pdf"), "hash1", "v1").isPresent());
+        assertFalse(reopened.lookup(minutes, "hash3", "v1").isPresent());
+        assertFalse(reopened.lookup(minutes, "hash1", "v2").isPresent());
+
+        IngestionManifest.Entry unparsed = reopened.lookup(unparseable, "hash2", "v1").get();
+        assertFalse(unparsed.getMeetingFile().isPresent());
+        assertFalse(reopened.load(unparsed).isPresent());
+    }
+
+    @Test
+    public void testRetainOnlyDeletesUnreferencedMeetings() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        Path first = minutes("first.pdf");
+        Path second = minutes("second.pdf");
+        IngestionManifest manifest = IngestionManifest.open(directory);
+        manifest.record(first, "hash1", "v1", meeting("PREMIER CONSEIL"));
+        manifest.record(second, "hash2", "v1", meeting("SECOND CONSEIL"));
+        manifest.save();
+        assertEquals(2, storedMeetings(directory).length);
+
+        manifest.retainOnly(Collections.singletonList(second));
+        manifest.save();
+        assertFalse(manifest.lookup(first, "hash1", "v1").isPresent());
+        assertTrue(manifest.lookup(second, "hash2", "v1").isPresent());
+        assertArrayEquals(new String[]{"hash2.json"}, storedMeetings(directory));
+        assertFalse(IngestionManifest.open(directory).lookup(first, "hash1", "v1").isPresent());
+    }
+
+    @Test
+    public void testUnreadableStoredMeetingIsParsedAgain() throws IOException {
+        Path input = folder.newFolder("input").toPath();
+        File pdf = input.resolve("minutes.pdf").toFile();
+        TestPdfs.writePdf(pdf, new String[]{"CONSEIL COMMUNAL"}, 1);
+        Path directory = folder.getRoot().toPath().resolve("manifest");
+        AtomicInteger parsed = new AtomicInteger();
+        MeetingParser parser = countingParser(parsed);
+
+        List<Meeting> first = new MeetingIngestor(1, new PDFExtractor(), parser, IngestionManifest.open(directory)).ingest(input);
+        assertEquals(1, parsed.get());
+        assertEquals(first.get(0).getId(), new MeetingIngestor(1, new PDFExtractor(), parser, IngestionManifest.open(directory))
+                .ingest(input).get(0).getId());
+        assertEquals(1, parsed.get());
+
+        for (byte[] corruption : Arrays.asList("{\"items\":".getBytes(), new byte[0])) {
+            Path stored = directory.resolve("meetings").resolve(storedMeetings(directory)[0]);
+            Files.write(stored, corruption);
+            List<Meeting> again = new MeetingIngestor(1, new PDFExtractor(), parser, IngestionManifest.open(directory)).ingest(input);
+            assertEquals(first.get(0).getId(), again.get(0).getId());
+        }
+        assertEquals(3, parsed.get());
+        Files.delete(directory.resolve("meetings").resolve(storedMeetings(directory)[0]));
+        new MeetingIngestor(1, new PDFExtractor(), parser, IngestionManifest.open(directory)).ingest(input);
+        assertEquals(4, parsed.get());
+        // the entry was recorded anew
+        new MeetingIngestor(1, new PDFExtractor(), parser, IngestionManifest.open(directory)).ingest(input);
+        assertEquals(4, parsed.get());
+    }
+
+    @Test
+    public void testOtherExtractionProfileParsesAgain() throws IOException {
+        Path input = folder.newFolder("input").toPath();
+        TestPdfs.writePdf(input.resolve("minutes.pdf").toFile(), new String[]{"CONSEIL COMMUNAL"}, 1);
+        Path directory = folder.getRoot().toPath().resolve("manifest");
+        AtomicInteger parsed = new AtomicInteger();
+        MeetingParser parser = countingParser(parsed);
+        PDFExtractor sorting = new PDFExtractor(null, new PDFExtractor.PageParallelism(), ExtractionProfile.textOnly().sortByPosition(true));
+
+        new MeetingIngestor(1, new PDFExtractor(), parser, IngestionManifest.open(directory)).ingest(input);
+        new MeetingIngestor(1, sorting, parser, IngestionManifest.open(directory)).ingest(input);
+        assertEquals(2, parsed.get());
+        new MeetingIngestor(1, sorting, parser, IngestionManifest.open(directory)).ingest(input);
+        assertEquals(2, parsed.get());
+    }
+}
@@ -0,0 +1,131 @@
+package org.cccrunching.ingest;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class LatencyRecorderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * @return a recorder holding 1 to <code>count</code> milliseconds, recorded in random order
+     */
+    private static LatencyRecorder millis(int count){
+        List<Long> samples = new ArrayList<>();
+        for (long i = 1; i <= count; i++) {
+            samples.add(i * MS);
+        }
+        Collections.shuffle(samples, new Random(count));
+        LatencyRecorder recorder = new LatencyRecorder();
+        samples.forEach(recorder::record);
+        return recorder;
+    }
+
+    @Test
+    public void testNearestRankPercentiles(){
+        LatencyRecorder recorder = millis(100);
+        assertEquals(100, recorder.getCount());
+        assertEquals(5050 * MS, recorder.getTotalNanos());
+        assertEquals(100 * MS, recorder.getMaxNanos());
+        assertEquals(50 * MS, recorder.percentile(50));
+        assertEquals(95 * MS, recorder.percentile(95));
+        assertEquals(99 * MS, recorder.percentile(99));
+        assertEquals(100 * MS, recorder.percentile(100));
+        assertEquals(1 * MS, recorder.percentile(0.1));
+
+        // the percentile is a sample, the smallest one covering at least the requested share
+        LatencyRecorder few = new LatencyRecorder();
+        for (long sample : new long[]{35, 20, 50, 15, 40}) {
+            few.record(sample);
+        }
+        assertEquals(20, few.percentile(30));
+        assertEquals(20, few.percentile(40));
+        assertEquals(35, few.percentile(50));
+        assertEquals(50, few.percentile(95));
+        assertEquals(50, few.percentile(99));
+        assertEquals(15, few.percentile(1));
+    }
+
+    @Test
+    public void testEmptyRecorder(){
+        LatencyRecorder recorder = new LatencyRecorder();
+        assertEquals(0, recorder.getCount());
+        assertEquals(0, recorder.getTotalNanos());
+        assertEquals(0, recorder.getMaxNanos());
+        assertEquals(0, recorder.percentile(50));
+        assertEquals(0, recorder.percentile(100));
+    }
+
+    @Test
+    public void testPercentileBounds(){
+        LatencyRecorder recorder = millis(10);
+        for (double percentile : new double[]{0, -1, 100.001, Double.NaN}) {
+            try {
+                recorder.percentile(percentile);
+                fail("Percentile " + percentile + " should be rejected");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+        // bounds are checked before looking at the samples
+        try {
+            new LatencyRecorder().percentile(0);
+            fail("Percentile 0 should be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testReport() throws IOException {
+        IngestionMetrics metrics = new IngestionMetrics();
+        for (int i = 1; i <= 100; i++) {
+            FileMetrics file = new FileMetrics(Paths.get("minutes-" + i + ".pdf"), 1000);
+            file.extracted(i * MS, 10);
+            file.parsed(2 * i * MS, 1, 1);
+            metrics.record(file);
+        }
+        // neither stage completed, no latency is recorded
+        FileMetrics failed = new FileMetrics(Paths.get("broken.pdf"), 10);
+        failed.failed(FileMetrics.Stage.EXTRACTION, new IllegalStateException());
+        metrics.record(failed);
+        assertEquals(95, metrics.getExtractionMillisP95(), 0);
+        assertEquals(198, metrics.getParseMillisP99(), 0);
+
+        Path report = folder.getRoot().toPath().resolve("metrics.json");
+        metrics.writeReport(report);
+        JsonObject json = new JsonParser().parse(new String(Files.readAllBytes(report), StandardCharsets.UTF_8)).getAsJsonObject();
+        assertEquals(101, json.get("files").getAsInt());
+        assertEquals(1, json.getAsJsonObject("failuresByType").get(IllegalStateException.class.getName()).getAsInt());
+        JsonObject extraction = json.getAsJsonObject("stages").getAsJsonObject("EXTRACTION");
+        assertEquals(100, extraction.get("count").getAsInt());
+        assertEquals(5050, extraction.get("totalMillis").getAsDouble(), 0);
+        assertEquals(50, extraction.get("p50Millis").getAsDouble(), 0);
+        assertEquals(95, extraction.get("p95Millis").getAsDouble(), 0);
+        assertEquals(99, extraction.get("p99Millis").getAsDouble(), 0);
+        assertEquals(100, extraction.get("maxMillis").getAsDouble(), 0);
+        JsonObject parse = json.getAsJsonObject("stages").getAsJsonObject("PARSE");
+        assertEquals(100, parse.get("p50Millis").getAsDouble(), 0);
+        assertEquals(190, parse.get("p95Millis").getAsDouble(), 0);
+        assertEquals(198, parse.get("p99Millis").getAsDouble(), 0);
+    }
+}
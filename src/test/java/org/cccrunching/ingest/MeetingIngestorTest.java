@@ -0,0 +1,252 @@
+package org.cccrunching.ingest;
+
+import org.cccrunching.data.Meeting;
+import org.cccrunching.data.MeetingItem;
+import org.cccrunching.parser.LineSink;
+import org.cccrunching.parser.MeetingParser;
+import org.cccrunching.parser.PDFExtractor;
+import org.cccrunching.parser.StreamingMeetingParser;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Ingestion of text files standing for minutes, with a stubbed extractor and parser
+ */
+public class MeetingIngestorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Reads the files as UTF-8 text, sleeping first for the number of milliseconds given by their second line
+     */
+    private static class TextExtractor extends PDFExtractor {
+
+        private final List<String> completed = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger texts = new AtomicInteger();
+        private final AtomicInteger streamed = new AtomicInteger();
+
+        private List<String> read(File file){
+            try {
+                List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+                if (lines.size() > 1) {
+                    Thread.sleep(Long.parseLong(lines.get(1)));
+                }
+                completed.add(lines.get(0));
+                return lines;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public String pdfAsText(File file) {
+            texts.incrementAndGet();
+            return String.join("\n", read(file));
+        }
+
+        @Override
+        public long pdfAsLines(File file, LineSink sink) {
+            streamed.incrementAndGet();
+            long characters = 0;
+            for (String line : read(file)) {
+                sink.line(line, true);
+                characters += line.length() + 1;
+            }
+            return characters;
+        }
+    }
+
+    /**
+     * Makes a meeting of the date on the first line, rejects texts starting with anything else
+     */
+    private static class DateParser implements MeetingParser {
+
+        private final AtomicInteger parsed = new AtomicInteger();
+
+        @Override
+        public Meeting parse(String meetingText) {
+            parsed.incrementAndGet();
+            String date = meetingText.split("\n")[0];
+            LocalDate meetingDate;
+            try {
+                meetingDate = LocalDate.parse(date);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Not minutes: " + date, e);
+            }
+            return Meeting.builder("La Louvière", "CONSEIL COMMUNAL DU " + date, meetingDate)
+                    .addItem(new MeetingItem("1.- Budget", "débat", "A l'unanimité,", true))
+                    .build();
+        }
+
+        @Override
+        public String getVersion() {
+            return "date-1";
+        }
+
+        @Override
+        public List<String> getSignatureMarkers() {
+            return Collections.singletonList("CONSEIL");
+        }
+    }
+
+    /**
+     * Same as {@link DateParser}, fed line by line
+     */
+    private static class StreamingDateParser extends DateParser implements StreamingMeetingParser {
+
+        @Override
+        public Session open(Consumer<MeetingItem> itemListener) {
+            StringBuilder text = new StringBuilder();
+            return new Session() {
+                @Override
+                public Meeting finish() {
+                    return parse(text.toString());
+                }
+
+                @Override
+                public void line(CharSequence line, boolean terminated) {
+                    text.append(line).append('\n');
+                }
+            };
+        }
+    }
+
+    /**
+     * @return a directory holding minutes of the given dates, the earliest taking the longest to extract,
+     * and a file that is not minutes
+     */
+    private Path minutes(String... dates) throws IOException {
+        Path directory = folder.newFolder().toPath();
+        for (int i = 0; i < dates.length; i++) {
+            Files.write(directory.resolve(dates[i] + ".pdf"),
+                    Arrays.asList(dates[i], String.valueOf(50 * (dates.length - i))), StandardCharsets.UTF_8);
+        }
+        Files.write(directory.resolve("cover.pdf"), Collections.singletonList("not minutes"), StandardCharsets.UTF_8);
+        return directory;
+    }
+
+    private static List<String> titles(List<Meeting> meetings){
+        return meetings.stream().map(Meeting::getTitle).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testMeetingsAreSortedByDate() throws IOException {
+        Path directory = minutes("2017-01-30", "2017-06-26", "2017-11-27");
+        TextExtractor extractor = new TextExtractor();
+        DateParser parser = new DateParser();
+        List<Meeting> meetings = new MeetingIngestor(4, extractor, parser).ingest(directory);
+
+        assertEquals(Arrays.asList("CONSEIL COMMUNAL DU 2017-01-30", "CONSEIL COMMUNAL DU 2017-06-26",
+                "CONSEIL COMMUNAL DU 2017-11-27"), titles(meetings));
+        // the earliest meeting was extracted last
+        assertEquals("2017-01-30", extractor.completed.get(extractor.completed.size() - 1));
+        assertEquals(4, extractor.texts.get());
+        assertEquals(0, extractor.streamed.get());
+    }
+
+    @Test
+    public void testUnparseableFilesAreSkipped() throws IOException {
+        Path directory = minutes("2017-11-27");
+        MeetingIngestor ingestor = new MeetingIngestor(2, new TextExtractor(), new DateParser());
+        List<Meeting> meetings = ingestor.ingest(directory);
+
+        assertEquals(Collections.singletonList("CONSEIL COMMUNAL DU 2017-11-27"), titles(meetings));
+        IngestionMetrics metrics = ingestor.getMetrics();
+        assertEquals(2, metrics.getFilesProcessed());
+        assertEquals(1, metrics.getFilesParsed());
+        assertEquals(1, metrics.getFilesFailed());
+        assertEquals(Collections.singletonMap(IllegalArgumentException.class.getName(), 1), metrics.getFailuresByType());
+    }
+
+    @Test
+    public void testOtherParsingFailuresFailTheRun() throws IOException {
+        Path directory = minutes("2017-11-27");
+        DateParser failing = new DateParser() {
+            @Override
+            public Meeting parse(String meetingText) {
+                throw new IllegalStateException("parser bug");
+            }
+        };
+        try {
+            new MeetingIngestor(2, new TextExtractor(), failing).ingest(directory);
+            fail("Unexpected parsing failures should not be skipped");
+        } catch (IllegalStateException e) {
+            assertEquals("parser bug", e.getMessage());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParallelismMustBePositive(){
+        new MeetingIngestor(0, new TextExtractor(), new DateParser());
+    }
+
+    @Test
+    public void testStreamingParser() throws IOException {
+        Path directory = minutes("2017-01-30", "2017-06-26", "2017-11-27");
+        TextExtractor extractor = new TextExtractor();
+        List<Meeting> meetings = new MeetingIngestor(4, extractor, new StreamingDateParser()).ingest(directory);
+
+        assertEquals(3, meetings.size());
+        assertEquals("CONSEIL COMMUNAL DU 2017-01-30", meetings.get(0).getTitle());
+        // the lines are parsed as they are extracted, the whole text is never asked for
+        assertEquals(0, extractor.texts.get());
+        assertEquals(4, extractor.streamed.get());
+    }
+
+    @Test
+    public void testMeetingsAreHandedOver() throws IOException {
+        Path directory = minutes("2017-01-30", "2017-06-26", "2017-11-27");
+        TextExtractor extractor = new TextExtractor();
+        List<Meeting> handedOver = Collections.synchronizedList(new ArrayList<>());
+        new MeetingIngestor(4, extractor, new DateParser()).ingest(directory, handedOver::add);
+
+        // in the order the files complete
+        assertEquals(extractor.completed.stream().filter(s -> s.startsWith("2017")).map(d -> "CONSEIL COMMUNAL DU " + d)
+                .collect(Collectors.toList()), titles(handedOver));
+    }
+
+    @Test
+    public void testManifestIsReused() throws IOException {
+        Path directory = minutes("2017-01-30", "2017-11-27");
+        Path manifest = folder.getRoot().toPath().resolve("manifest");
+        DateParser parser = new DateParser();
+        List<Meeting> first = new MeetingIngestor(2, new TextExtractor(), parser, IngestionManifest.open(manifest)).ingest(directory);
+        assertEquals(3, parser.parsed.get());
+
+        TextExtractor extractor = new TextExtractor();
+        MeetingIngestor ingestor = new MeetingIngestor(2, extractor, parser, IngestionManifest.open(manifest));
+        List<Meeting> second = ingestor.ingest(directory);
+        assertEquals(3, parser.parsed.get());
+        assertEquals(0, extractor.texts.get());
+        assertEquals(3, ingestor.getMetrics().getFilesReused());
+        assertEquals(titles(first), titles(second));
+        assertEquals(first.get(1).getContentHash(), second.get(1).getContentHash());
+
+        // only the changed file is parsed again
+        Files.write(directory.resolve("2017-11-27.pdf"), Arrays.asList("2017-11-28", "0"), StandardCharsets.UTF_8);
+        List<Meeting> third = new MeetingIngestor(2, extractor, parser, IngestionManifest.open(manifest)).ingest(directory);
+        assertEquals(4, parser.parsed.get());
+        assertEquals(1, extractor.texts.get());
+        assertEquals(Arrays.asList("CONSEIL COMMUNAL DU 2017-01-30", "CONSEIL COMMUNAL DU 2017-11-28"), titles(third));
+    }
+}
@@ -0,0 +1,95 @@
+package org.cccrunching.parser;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+
+/**
+ * Storage of annotations, without loading any CoreNLP model
+ */
+public class AnnotationCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static ItemAnnotations annotations(){
+        return new ItemAnnotations(
+                Arrays.asList("M.", "Gobert", "ouvre", "la", "séance", "."),
+                Arrays.asList("m.", "gobert", "ouvrir", "le", "séance", null),
+                Arrays.asList("NPP", "NPP", "V", "DET", "NC", "PUNC"),
+                new int[]{0, 3},
+                Collections.singletonList(new ItemAnnotations.EntitySpan(0, 2, "PERSON")));
+    }
+
+    private static void assertSameAnnotations(ItemAnnotations expected, ItemAnnotations actual){
+        assertEquals(expected.getTokens(), actual.getTokens());
+        assertEquals(expected.getLemmas(), actual.getLemmas());
+        assertEquals(expected.getPosTags(), actual.getPosTags());
+        assertEquals(expected.getSentenceCount(), actual.getSentenceCount());
+        for (int i = 0; i < expected.getSentenceCount(); i++) {
+            assertEquals(expected.getSentence(i), actual.getSentence(i));
+        }
+        assertEquals(expected.getEntities(), actual.getEntities());
+    }
+
+    private static byte[] write(ItemAnnotations annotations) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            annotations.writeTo(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void testAnnotationsRoundTrip() throws IOException {
+        ItemAnnotations empty = new ItemAnnotations(Collections.emptyList(), Collections.emptyList(),
+                Collections.emptyList(), new int[0], Collections.emptyList());
+        for (ItemAnnotations annotations : Arrays.asList(annotations(), empty)) {
+            byte[] bytes = write(annotations);
+            assertSameAnnotations(annotations, ItemAnnotations.readFrom(new DataInputStream(new ByteArrayInputStream(bytes))));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnknownFormatVersionIsRejected() throws IOException {
+        byte[] bytes = write(annotations());
+        bytes[3]++;
+        ItemAnnotations.readFrom(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+    @Test
+    public void testGetAndPut() throws IOException {
+        Path directory = folder.getRoot().toPath().resolve("annotations");
+        AnnotationCache cache = new AnnotationCache(directory);
+        String key = AnnotationCache.key("annotators=tokenize", "M.Gobert ouvre la séance.");
+        assertEquals(key, AnnotationCache.key("annotators=tokenize", "M.Gobert ouvre la séance."));
+        assertNotEquals(key, AnnotationCache.key("annotators=tokenize,ner", "M.Gobert ouvre la séance."));
+        assertNotEquals(key, AnnotationCache.key("annotators=tokenize", "M.Gobert ferme la séance."));
+
+        assertFalse(cache.get(key).isPresent());
+        cache.put(key, annotations());
+        Optional<ItemAnnotations> cached = cache.get(key);
+        assertTrue(cached.isPresent());
+        assertSameAnnotations(annotations(), cached.get());
+        // entries outlive the instance
+        assertTrue(new AnnotationCache(directory).get(key).isPresent());
+    }
+
+    @Test
+    public void testUnreadableEntryIsIgnored() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        AnnotationCache cache = new AnnotationCache(directory);
+        cache.put("key", annotations());
+        Files.write(directory.resolve("key.ann.gz"), new byte[]{1, 2, 3});
+        assertFalse(cache.get("key").isPresent());
+    }
+}
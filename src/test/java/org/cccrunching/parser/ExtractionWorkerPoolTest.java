@@ -0,0 +1,89 @@
+package org.cccrunching.parser;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs extractions in child JVMs started from the test classpath
+ */
+public class ExtractionWorkerPoolTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File minutesPdf(int pages) throws IOException {
+        File pdf = folder.newFile("minutes-" + pages + ".pdf");
+        try (InputStream is = getClass().getResourceAsStream("/lalouviere/minutes-excerpt.txt")) {
+            TestPdfs.writePdf(pdf, IOUtils.toString(is, StandardCharsets.UTF_8).split("\n"), pages);
+        }
+        return pdf;
+    }
+
+    @Test
+    public void testExtractsLikeInProcessAndRecyclesWorkers() throws IOException {
+        File pdf = minutesPdf(3);
+        ExtractionWorkerPool.Settings settings = new ExtractionWorkerPool.Settings().workers(1).documentsPerWorker(2);
+        try (ExtractionWorkerPool pool = new ExtractionWorkerPool(settings)) {
+            PDFExtractor extractor = new PDFExtractor(null, pool);
+            String expected = new PDFExtractor().pdfAsText(pdf);
+            assertEquals(expected, extractor.pdfAsText(pdf));
+            assertEquals(expected, extractor.pdfAsText(pdf));
+            assertEquals(1, pool.getStartedWorkers());
+            StringBuilder lines = new StringBuilder();
+            assertEquals(expected.length(), extractor.pdfAsLines(pdf, (line, terminated) -> lines.append(line).append(terminated ? "\n" : "")));
+            assertEquals(expected, lines.toString());
+            assertEquals(2, pool.getStartedWorkers());
+        }
+    }
+
+    @Test
+    public void testQuarantinesBrokenFiles() throws IOException {
+        Path quarantine = folder.getRoot().toPath().resolve("quarantine");
+        File broken = folder.newFile("broken.pdf");
+        Files.write(broken.toPath(), "%PDF-1.4 not really".getBytes(StandardCharsets.US_ASCII));
+        File pdf = minutesPdf(3);
+        ExtractionWorkerPool.Settings settings = new ExtractionWorkerPool.Settings().workers(1).quarantine(quarantine);
+        try (ExtractionWorkerPool pool = new ExtractionWorkerPool(settings)) {
+            try {
+                pool.extract(broken);
+                fail("Broken file should not be extracted");
+            } catch (ExtractionFailedException e) {
+                assertFalse(e.isTimeout());
+            }
+            assertTrue(Files.exists(quarantine.resolve("broken.pdf")));
+            assertFalse(new String(Files.readAllBytes(quarantine.resolve("broken.pdf.reason")), StandardCharsets.UTF_8).trim().isEmpty());
+            // the worker survives a failed extraction
+            assertFalse(pool.extract(pdf).trim().isEmpty());
+            assertEquals(1, pool.getStartedWorkers());
+        }
+    }
+
+    @Test
+    public void testKillsWorkersOverTheTimeBudget() throws IOException {
+        File pdf = minutesPdf(400);
+        Path quarantine = folder.getRoot().toPath().resolve("quarantine");
+        ExtractionWorkerPool.Settings settings = new ExtractionWorkerPool.Settings().workers(1)
+                .timeout(1, TimeUnit.MILLISECONDS).quarantine(quarantine);
+        try (ExtractionWorkerPool pool = new ExtractionWorkerPool(settings)) {
+            try {
+                pool.extract(pdf);
+                fail("Extraction should time out");
+            } catch (ExtractionFailedException e) {
+                assertTrue(e.isTimeout());
+            }
+            assertTrue(Files.exists(quarantine.resolve(pdf.getName() + ".reason")));
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package org.cccrunching.parser;
+
+import edu.stanford.nlp.pipeline.Annotation;
+import org.cccrunching.data.MeetingItem;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Batch annotation with a stubbed annotator, without loading any CoreNLP model
+ */
+public class MeetingItemAnalyzerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static List<MeetingItem> items(int count){
+        List<MeetingItem> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            items.add(new MeetingItem(i + ".- Point", "discussion " + i, null, null));
+        }
+        // items without discussion are not annotated
+        items.add(new MeetingItem("Divers"));
+        return items;
+    }
+
+    private static List<String> discussions(Stream<MeetingItemAnalyzer.AnalyzedItem> analyzed){
+        return analyzed.map(a -> a.getItem().getDiscussion()).collect(Collectors.toList());
+    }
+
+    private static int analysisThreads(){
+        int threads = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("item-analysis-") && thread.isAlive()) {
+                assertTrue(thread.isDaemon());
+                threads++;
+            }
+        }
+        return threads;
+    }
+
+    private static void awaitNoAnalysisThread() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (analysisThreads() > 0) {
+            assertTrue("Analysis threads still running", System.nanoTime() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static void awaitStarted(AtomicInteger started, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (started.get() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        // leaves time to annotate items beyond the window, if they were submitted
+        Thread.sleep(100);
+        assertEquals(expected, started.get());
+    }
+
+    @Test
+    public void testAllItemsAreAnalyzed() throws IOException, InterruptedException {
+        List<MeetingItem> items = items(50);
+        MeetingItemAnalyzer analyzer = new MeetingItemAnalyzer(null, "stub", Annotation::new);
+        List<String> expected = items.stream().map(MeetingItem::getDiscussion).filter(Objects::nonNull).collect(Collectors.toList());
+        // with a single thread, completion order is the order of the items
+        try (Stream<MeetingItemAnalyzer.AnalyzedItem> analyzed = analyzer.analyzeAll(items, 1)) {
+            assertEquals(expected, discussions(analyzed));
+        }
+        try (Stream<MeetingItemAnalyzer.AnalyzedItem> analyzed = analyzer.analyzeAll(items, 4)) {
+            List<String> actual = discussions(analyzed);
+            Collections.sort(actual);
+            Collections.sort(expected);
+            assertEquals(expected, actual);
+        }
+        assertTrue(discussions(analyzer.analyzeAll(Collections.singletonList(new MeetingItem("Divers")), 2)).isEmpty());
+        awaitNoAnalysisThread();
+    }
+
+    @Test
+    public void testAnnotationsAreCached() throws IOException {
+        AtomicInteger annotated = new AtomicInteger();
+        MeetingItemAnalyzer analyzer = new MeetingItemAnalyzer(new AnnotationCache(folder.getRoot().toPath()), "stub", text -> {
+            annotated.incrementAndGet();
+            return new Annotation(text);
+        });
+        MeetingItem item = new MeetingItem("1.- Point", "discussion", null, null);
+        assertFalse(analyzer.analyze(item).get().isCached());
+        assertTrue(analyzer.analyze(item).get().isCached());
+        assertEquals(1, annotated.get());
+        assertFalse(analyzer.analyze(new MeetingItem("Divers")).isPresent());
+    }
+
+    @Test
+    public void testItemsAreAnnotatedAheadWithinWindow() throws InterruptedException {
+        AtomicInteger started = new AtomicInteger();
+        MeetingItemAnalyzer analyzer = new MeetingItemAnalyzer(null, "stub", text -> {
+            started.incrementAndGet();
+            return new Annotation(text);
+        });
+        try (Stream<MeetingItemAnalyzer.AnalyzedItem> analyzed = analyzer.analyzeAll(items(20), 2)) {
+            Iterator<MeetingItemAnalyzer.AnalyzedItem> results = analyzed.iterator();
+            // two items per thread are submitted ahead of the consumer, and no more
+            awaitStarted(started, 4);
+            results.next();
+            awaitStarted(started, 5);
+        }
+        awaitNoAnalysisThread();
+    }
+
+    @Test
+    public void testClosingEarlyCancelsWork() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger blocked = new AtomicInteger();
+        AtomicInteger interrupted = new AtomicInteger();
+        MeetingItemAnalyzer analyzer = new MeetingItemAnalyzer(null, "stub", text -> {
+            if (!text.equals("discussion 0")) {
+                blocked.incrementAndGet();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    interrupted.incrementAndGet();
+                }
+            }
+            return new Annotation(text);
+        });
+        try (Stream<MeetingItemAnalyzer.AnalyzedItem> analyzed = analyzer.analyzeAll(items(20), 2)) {
+            assertEquals("discussion 0", analyzed.findFirst().get().getItem().getDiscussion());
+        }
+        awaitNoAnalysisThread();
+        // the items being annotated when the stream was closed were interrupted, the others never started
+        assertTrue(blocked.get() >= 1 && blocked.get() <= 2);
+        assertEquals(blocked.get(), interrupted.get());
+    }
+
+    @Test
+    public void testFailureShutsWorkersDown() throws InterruptedException {
+        MeetingItemAnalyzer analyzer = new MeetingItemAnalyzer(null, "stub", text -> {
+            throw new IllegalStateException("annotator failure");
+        });
+        // not closed, the failure alone stops the workers
+        Stream<MeetingItemAnalyzer.AnalyzedItem> analyzed = analyzer.analyzeAll(items(20), 2);
+        try {
+            analyzed.collect(Collectors.toList());
+            fail("Annotation failure should be reported");
+        } catch (RuntimeException e) {
+            assertEquals("annotator failure", e.getCause().getMessage());
+        }
+        awaitNoAnalysisThread();
+    }
+}
@@ -0,0 +1,77 @@
+package org.cccrunching.parser;
+
+import org.cccrunching.data.Meeting;
+import org.cccrunching.parser.lalouviere.LaLouvMeetingParser;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+
+public class MeetingParserRegistryTest {
+
+    private static class FakeParser implements MeetingParser {
+
+        private final String version;
+        private final List<String> markers;
+
+        FakeParser(String version, String... markers){
+            this.version = version;
+            this.markers = Arrays.asList(markers);
+        }
+
+        @Override
+        public Meeting parse(String meetingText) {
+            return new Meeting(version);
+        }
+
+        @Override
+        public String getVersion() {
+            return version;
+        }
+
+        @Override
+        public List<String> getSignatureMarkers() {
+            return markers;
+        }
+    }
+
+    private final FakeParser mons = new FakeParser("mons-1", "VILLE DE MONS", "Conseil communal de Mons");
+    private final FakeParser charleroi = new FakeParser("charleroi-2", "CHARLEROI (+)");
+    private final MeetingParserRegistry registry = new MeetingParserRegistry(Arrays.asList(mons, charleroi));
+
+    @Test
+    public void testDetectsFirstMarker(){
+        assertEquals(Optional.of(charleroi), registry.detect("Procès-verbal\nCHARLEROI (+) et VILLE DE MONS"));
+        assertEquals(Optional.of(mons), registry.detect("Conseil communal de Mons, CHARLEROI (+)"));
+        assertEquals("mons-1", registry.parse("VILLE DE MONS").getTitle());
+    }
+
+    @Test
+    public void testOnlyScansTheDetectionWindow(){
+        char[] padding = new char[MeetingParserRegistry.DETECTION_WINDOW];
+        Arrays.fill(padding, ' ');
+        assertFalse(registry.detect(new String(padding) + "VILLE DE MONS").isPresent());
+        assertTrue(registry.detect(new String(padding, 0, padding.length - 13) + "VILLE DE MONS").isPresent());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownFormat(){
+        registry.parse("CONSEIL COMMUNAL DU LUNDI 27 NOVEMBRE 2017");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParserWithoutMarker(){
+        new MeetingParserRegistry(Collections.singletonList(new FakeParser("none")));
+    }
+
+    @Test
+    public void testServiceLoader(){
+        MeetingParserRegistry loaded = MeetingParserRegistry.load();
+        assertEquals(LaLouvMeetingParser.VERSION, loaded.getVersion());
+        assertTrue(loaded.detect("\nCONSEIL COMMUNAL DU LUNDI 27 NOVEMBRE 2017\n").get() instanceof LaLouvMeetingParser);
+    }
+}
@@ -0,0 +1,190 @@
+package org.cccrunching.parser;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDDocumentOutline;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineItem;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that extracting page ranges concurrently gives the same text as a serial extraction
+ */
+public class PDFExtractorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final PDFExtractor serial = new PDFExtractor();
+    private final PDFExtractor parallel = new PDFExtractor(null, new PDFExtractor.PageParallelism().threads(3).minPages(10));
+
+    private static String[] excerptLines() throws IOException {
+        try (InputStream is = PDFExtractorTest.class.getResourceAsStream("/lalouviere/minutes-excerpt.txt")) {
+            return IOUtils.toString(is, StandardCharsets.UTF_8).split("\n");
+        }
+    }
+
+    private static String lines(PDFExtractor extractor, File pdf){
+        StringBuilder text = new StringBuilder();
+        extractor.pdfAsLines(pdf, (line, terminated) -> {
+            text.append(line);
+            if (terminated) {
+                text.append('\n');
+            }
+        });
+        return text.toString();
+    }
+
+    private void assertSameText(File pdf){
+        String expected = serial.pdfAsText(pdf);
+        assertFalse(expected.trim().isEmpty());
+        assertEquals(expected, parallel.pdfAsText(pdf));
+        assertEquals(lines(serial, pdf), lines(parallel, pdf));
+    }
+
+    @Test
+    public void testPageRangesAreStitchedInOrder() throws IOException {
+        for (int pages : new int[]{1, 10, 11, 31}) {
+            File pdf = folder.newFile("minutes-" + pages + ".pdf");
+            TestPdfs.writePdf(pdf, excerptLines(), pages);
+            assertSameText(pdf);
+        }
+    }
+
+    private File pdfWithOutline() throws IOException {
+        File pdf = folder.newFile("outline.pdf");
+        try (PDDocument document = TestPdfs.createPdf(excerptLines(), 12)) {
+            PDDocumentOutline outline = new PDDocumentOutline();
+            PDOutlineItem item = new PDOutlineItem();
+            item.setTitle("Signet du procès-verbal");
+            item.setDestination(document.getPage(4));
+            outline.addLast(item);
+            document.getDocumentCatalog().setDocumentOutline(outline);
+            document.save(pdf);
+        }
+        return pdf;
+    }
+
+    @Test
+    public void testDocumentWithOutlineIsExtractedSerially() throws IOException {
+        File pdf = pdfWithOutline();
+        PDFExtractor serialWithBookmarks = new PDFExtractor(null, new PDFExtractor.PageParallelism(), ExtractionProfile.tikaDefaults());
+        PDFExtractor parallelWithBookmarks = new PDFExtractor(null, new PDFExtractor.PageParallelism().threads(3).minPages(10), ExtractionProfile.tikaDefaults());
+        String expected = serialWithBookmarks.pdfAsText(pdf);
+        assertTrue(expected.contains("Signet du procès-verbal"));
+        assertEquals(expected, parallelWithBookmarks.pdfAsText(pdf));
+        assertEquals(lines(serialWithBookmarks, pdf), lines(parallelWithBookmarks, pdf));
+    }
+
+    @Test
+    public void testTextOnlyProfile() throws IOException {
+        File pdf = pdfWithOutline();
+        String text = serial.pdfAsText(pdf);
+        assertFalse(text.contains("Signet du procès-verbal"));
+        assertSameText(pdf);
+
+        PDFExtractor decomposing = new PDFExtractor(null, new PDFExtractor.PageParallelism(), ExtractionProfile.textOnly().normalization(Normalizer.Form.NFD));
+        String decomposed = decomposing.pdfAsText(pdf);
+        assertNotEquals(text, decomposed);
+        assertEquals(Normalizer.normalize(text, Normalizer.Form.NFD), decomposed);
+        assertEquals(decomposed, lines(decomposing, pdf));
+
+        ExtractionProfile profile = ExtractionProfile.tikaDefaults().sortByPosition(true).normalization(Normalizer.Form.NFKC);
+        assertEquals(profile.toArgument(), ExtractionProfile.fromArgument(profile.toArgument()).toArgument());
+        assertNotEquals(profile.fingerprint(), ExtractionProfile.textOnly().fingerprint());
+    }
+
+    /**
+     * @return the extraction events recorded while the extractions ran
+     */
+    private List<RecordedEvent> recordExtractions(Runnable extractions) throws IOException {
+        Path dump = folder.newFile("extraction.jfr").toPath();
+        try (Recording recording = new Recording()) {
+            recording.enable("org.cccrunching.PDFExtraction");
+            recording.start();
+            extractions.run();
+            recording.stop();
+            recording.dump(dump);
+        }
+        return RecordingFile.readAllEvents(dump);
+    }
+
+    @Test
+    public void testFailedExtractionsAreRecorded() throws IOException {
+        File junk = folder.newFile("junk.pdf");
+        Files.write(junk.toPath(), "not a PDF".getBytes(StandardCharsets.UTF_8));
+        List<RecordedEvent> events = recordExtractions(() -> {
+            try {
+                serial.pdfAsText(junk);
+                fail("Junk file should not be extracted");
+            } catch (RuntimeException e) {
+                // expected
+            }
+            try {
+                lines(serial, junk);
+                fail("Junk file should not be extracted");
+            } catch (RuntimeException e) {
+                // expected
+            }
+        });
+        assertEquals(2, events.size());
+        for (RecordedEvent event : events) {
+            assertEquals("junk.pdf", event.getString("file"));
+            assertNotNull(event.getString("failure"));
+        }
+    }
+
+    @Test
+    public void testTextOnlyProfileSkipsNonTextContent() throws IOException {
+        File pdf = folder.newFile("rich.pdf");
+        TestPdfs.writeRichPdf(pdf, excerptLines(), 3);
+        String everything = new PDFExtractor(null, new PDFExtractor.PageParallelism(), ExtractionProfile.tikaDefaults()).pdfAsText(pdf);
+        String text = serial.pdfAsText(pdf);
+        for (String extra : new String[]{"Note 3", "Champ 3", "Signet 3"}) {
+            assertTrue(extra, everything.contains(extra));
+            assertFalse(extra, text.contains(extra));
+        }
+        assertTrue(text.contains("Séance publique"));
+    }
+
+    @Test
+    public void testSmallFilesAreParsedOnce() throws IOException {
+        File small = folder.newFile("small.pdf");
+        TestPdfs.writePdf(small, excerptLines(), 1);
+        File large = folder.newFile("large.pdf");
+        TestPdfs.writePdf(large, excerptLines(), 31);
+        // the default threshold of 1 KB per page lets any document of 10 pages or more through
+        assertTrue(small.length() < 10 * 1024);
+        PDFExtractor loadingAll = new PDFExtractor(null, new PDFExtractor.PageParallelism().threads(3).minPages(10).minBytes(0));
+
+        List<RecordedEvent> events = recordExtractions(() -> {
+            parallel.pdfAsText(small);
+            lines(parallel, small);
+            parallel.pdfAsText(large);
+            loadingAll.pdfAsText(small);
+        });
+        assertEquals(4, events.size());
+        // only parsed by Tika
+        assertFalse(events.get(0).getBoolean("loadedForSplitting"));
+        assertFalse(events.get(1).getBoolean("loadedForSplitting"));
+        assertTrue(events.get(2).getBoolean("loadedForSplitting"));
+        // loaded for its page count, then parsed by Tika as it has fewer pages than needed to be split
+        assertTrue(events.get(3).getBoolean("loadedForSplitting"));
+        assertSameText(small);
+    }
+}
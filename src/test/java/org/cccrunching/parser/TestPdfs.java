@@ -0,0 +1,135 @@
+package org.cccrunching.parser;
+
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotationText;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotationWidget;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDDocumentOutline;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineItem;
+import org.apache.pdfbox.pdmodel.interactive.form.PDAcroForm;
+import org.apache.pdfbox.pdmodel.interactive.form.PDTextField;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Generation of PDF files for the extraction tests and benchmarks
+ */
+public final class TestPdfs {
+
+    public static final int LINES_PER_PAGE = 50;
+
+    private TestPdfs(){
+    }
+
+    /**
+     * Writes the given lines in a loop, until the requested number of pages is reached
+     */
+    public static void writePdf(File file, String[] lines, int pages) throws IOException {
+        try (PDDocument document = createPdf(lines, pages)) {
+            document.save(file);
+        }
+    }
+
+    /**
+     * Same as {@link #writePdf(File, String[], int)}, leaving the document open for further changes
+     */
+    public static PDDocument createPdf(String[] lines, int pages) throws IOException {
+        PDDocument document = new PDDocument();
+        int line = 0;
+        for (int p = 0; p < pages; p++) {
+            PDPage page = new PDPage();
+            document.addPage(page);
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                content.beginText();
+                content.setFont(PDType1Font.HELVETICA, 10);
+                content.setLeading(13);
+                content.newLineAtOffset(40, 750);
+                for (int i = 0; i < LINES_PER_PAGE; i++) {
+                    content.showText(printable(lines[line++ % lines.length]));
+                    content.newLine();
+                }
+                content.endText();
+            }
+        }
+        return document;
+    }
+
+    /**
+     * Same as {@link #writePdf(File, String[], int)}, adding to every page the content that minutes scanned or
+     * exported by office suites carry besides their text: see {@link #addNonTextContent(PDDocument)}
+     */
+    public static void writeRichPdf(File file, String[] lines, int pages) throws IOException {
+        try (PDDocument document = createPdf(lines, pages)) {
+            addNonTextContent(document);
+            document.save(file);
+        }
+    }
+
+    /**
+     * Adds to every page a sticky note, a form field, a bookmark and an image. Their texts start with
+     * "Note", "Champ" and "Signet" followed by the page number.
+     */
+    public static void addNonTextContent(PDDocument document) throws IOException {
+        PDAcroForm form = new PDAcroForm(document);
+        PDResources formResources = new PDResources();
+        formResources.put(COSName.getPDFName("Helv"), PDType1Font.HELVETICA);
+        form.setDefaultResources(formResources);
+        form.setDefaultAppearance("/Helv 10 Tf 0 g");
+        document.getDocumentCatalog().setAcroForm(form);
+        PDDocumentOutline outline = new PDDocumentOutline();
+        document.getDocumentCatalog().setDocumentOutline(outline);
+
+        BufferedImage image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < image.getWidth(); x++) {
+            for (int y = 0; y < image.getHeight(); y++) {
+                image.setRGB(x, y, x * 4 << 16 | y * 4 << 8);
+            }
+        }
+        PDImageXObject imageObject = LosslessFactory.createFromImage(document, image);
+
+        for (int p = 0; p < document.getNumberOfPages(); p++) {
+            PDPage page = document.getPage(p);
+            PDAnnotationText note = new PDAnnotationText();
+            note.setContents("Note " + (p + 1) + " : point à revoir avant la séance suivante");
+            note.setRectangle(new PDRectangle(500, 700, 20, 20));
+            page.getAnnotations().add(note);
+
+            PDTextField field = new PDTextField(form);
+            field.setPartialName("champ" + (p + 1));
+            PDAnnotationWidget widget = field.getWidgets().get(0);
+            widget.setRectangle(new PDRectangle(40, 40, 300, 20));
+            widget.setPage(page);
+            page.getAnnotations().add(widget);
+            form.getFields().add(field);
+            field.setValue("Champ " + (p + 1) + " signé par le directeur général");
+
+            PDOutlineItem bookmark = new PDOutlineItem();
+            bookmark.setTitle("Signet " + (p + 1));
+            bookmark.setDestination(page);
+            outline.addLast(bookmark);
+
+            try (PDPageContentStream content = new PDPageContentStream(document, page, PDPageContentStream.AppendMode.APPEND, true)) {
+                content.drawImage(imageObject, 500, 40, 64, 64);
+            }
+        }
+    }
+
+    // the standard Type 1 fonts only cover WinAnsi characters
+    private static String printable(String line){
+        StringBuilder printable = new StringBuilder(line.length());
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            printable.append(c < 0x20 ? ' ' : c == '’' ? '\'' : c > 0xFF ? '?' : c);
+        }
+        return printable.toString();
+    }
+}
@@ -0,0 +1,108 @@
+package org.cccrunching.parser;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+public class TextCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * @return letters drawn at random, which gzip cannot shrink much
+     */
+    private static String randomText(Random random, int length){
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append((char) ('a' + random.nextInt(26)));
+        }
+        return text.toString();
+    }
+
+    private static void touch(Path entry, long hoursAgo) throws IOException {
+        Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(hoursAgo)));
+    }
+
+    @Test
+    public void testHitAndMissAfterContentChange() throws IOException {
+        TextCache cache = new TextCache(folder.newFolder("cache").toPath(), 1 << 20);
+        File pdf = folder.newFile("minutes.pdf");
+        Files.write(pdf.toPath(), "%PDF-1.4 first version".getBytes(StandardCharsets.UTF_8));
+        String key = TextCache.key(pdf);
+        assertFalse(cache.get(key).isPresent());
+        cache.put(key, "CONSEIL COMMUNAL");
+        assertEquals(Optional.of("CONSEIL COMMUNAL"), cache.get(TextCache.key(pdf)));
+
+        Files.write(pdf.toPath(), "%PDF-1.4 second version".getBytes(StandardCharsets.UTF_8));
+        assertNotEquals(key, TextCache.key(pdf));
+        assertFalse(cache.get(TextCache.key(pdf)).isPresent());
+    }
+
+    @Test
+    public void testGzipRoundTrip() throws IOException {
+        Path directory = folder.newFolder("cache").toPath();
+        String text = "Séance publique du 27 novembre 2017\r\n\tM.Gobert : « Bonsoir »\n" + randomText(new Random(1), 10_000);
+        new TextCache(directory, 1 << 20).put("key", text);
+
+        Path entry = directory.resolve("key.txt.gz");
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(entry))) {
+            assertEquals(text, IOUtils.toString(in, StandardCharsets.UTF_8));
+        }
+        // entries outlive the instance
+        assertEquals(Optional.of(text), new TextCache(directory, 1 << 20).get("key"));
+        Files.write(entry, new byte[]{1, 2, 3});
+        assertFalse(new TextCache(directory, 1 << 20).get("key").isPresent());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() throws IOException {
+        Random random = new Random(2);
+        Path probe = folder.newFolder("probe").toPath();
+        new TextCache(probe, 1 << 20).put("probe", randomText(random, 4_000));
+        long entrySize = Files.size(probe.resolve("probe.txt.gz"));
+
+        Path directory = folder.newFolder("cache").toPath();
+        TextCache cache = new TextCache(directory, entrySize * 5 / 2);
+        String first = randomText(random, 4_000);
+        cache.put("first", first);
+        cache.put("second", randomText(random, 4_000));
+        touch(directory.resolve("first.txt.gz"), 2);
+        touch(directory.resolve("second.txt.gz"), 1);
+        // a hit makes the oldest entry the most recently used one
+        assertEquals(Optional.of(first), cache.get("first"));
+
+        cache.put("third", randomText(random, 4_000));
+        assertFalse(Files.exists(directory.resolve("second.txt.gz")));
+        assertTrue(cache.get("first").isPresent());
+        assertTrue(cache.get("third").isPresent());
+
+        // the size of the entries found in the directory counts against the cap
+        TextCache reopened = new TextCache(directory, entrySize * 5 / 2);
+        touch(directory.resolve("first.txt.gz"), 1);
+        reopened.put("fourth", randomText(random, 4_000));
+        assertFalse(Files.exists(directory.resolve("first.txt.gz")));
+        assertTrue(reopened.get("third").isPresent());
+        assertTrue(reopened.get("fourth").isPresent());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSizeMustBePositive() throws IOException {
+        new TextCache(folder.getRoot().toPath(), 0);
+    }
+}
@@ -0,0 +1,82 @@
+package org.cccrunching.parser.lalouviere;
+
+import org.cccrunching.data.MeetingItem;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that {@link DebateItemSplitter} gives the same items as the line by line implementation it replaced
+ */
+public class DebateItemSplitterTest {
+
+    private static void assertSameItems(String text){
+        Map<String, MeetingItem> expected = ReferenceDebateItemSplitter.splitDebateItems(text);
+        Map<String, MeetingItem> actual = new DebateItemSplitter(text).split();
+        assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(actual.keySet()));
+        for (String title : expected.keySet()) {
+            MeetingItem expectedItem = expected.get(title);
+            MeetingItem actualItem = actual.get(title);
+            assertEquals(expectedItem.getTitle(), actualItem.getTitle());
+            assertEquals(expectedItem.getDiscussion(), actualItem.getDiscussion());
+            assertEquals(expectedItem.getDecision(), actualItem.getDecision());
+            assertEquals(expectedItem.isUnanimousVote(), actualItem.isUnanimousVote());
+        }
+    }
+
+    @Test
+    public void testMinutesExcerpt() throws IOException {
+        String excerpt = LineClassifierTest.minutesExcerpt();
+        assertSameItems(excerpt);
+        assertSameItems(excerpt.substring(0, excerpt.length() - 1));
+        assertSameItems("\n\n" + excerpt);
+    }
+
+    @Test
+    public void testLineEndings() throws IOException {
+        String excerpt = LineClassifierTest.minutesExcerpt();
+        assertSameItems(excerpt.replace("\n", "\r\n"));
+        assertSameItems(excerpt.replace("\n", "\r"));
+        assertSameItems(excerpt.replace("\n", "\n\n"));
+        // a mix of all of them
+        StringBuilder mixed = new StringBuilder();
+        String[] separators = {"\n", "\r\n", "\r"};
+        String[] lines = excerpt.split("\n");
+        for (int i = 0; i < lines.length; i++) {
+            mixed.append(lines[i]).append(separators[i % separators.length]);
+        }
+        assertSameItems(mixed.toString());
+        assertSameItems("");
+        assertSameItems("\n");
+        assertSameItems("\r\n\r\n");
+    }
+
+    @Test
+    public void testRandomDebates(){
+        String[] fragments = {"1.- Point A", "2.- Point B", "Le Conseil,", "A l'unanimité,", "M.Gobert : oui",
+                "Par 20 oui et 10 non,", "texte", " ", "", "\t"};
+        String[] separators = {"\n", "\r\n", "\r", "\n\n", "\r\r\n"};
+        Random random = new Random(8);
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(16);
+            for (int j = 0; j < length; j++) {
+                text.append(fragments[random.nextInt(fragments.length)]);
+                if (random.nextInt(5) > 0) {
+                    text.append(separators[random.nextInt(separators.length)]);
+                }
+            }
+            texts.add(text.toString());
+        }
+        for (String text : texts) {
+            assertSameItems(text);
+        }
+    }
+}
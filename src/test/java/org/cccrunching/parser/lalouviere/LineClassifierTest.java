@@ -0,0 +1,79 @@
+package org.cccrunching.parser.lalouviere;
+
+import org.apache.commons.io.IOUtils;
+import org.cccrunching.parser.lalouviere.LaLouvMeetingParser.Token.TokenType;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the classifier against the regular expressions it replaced
+ */
+public class LineClassifierTest {
+
+    private static final Pattern PATTERN_DEBATE_ITEMS = Pattern.compile("\\s*([0-9]+\\.- .*)");
+    private static final Pattern PATTERN_DECISION_MARKER = Pattern.compile("\\s*Le Conseil,.*");
+    private static final Pattern PATTERN_DEBATE_MARKER = Pattern.compile("\\s*(M\\..*)\\s*:.*");
+
+    private static TokenType classifyWithRegex(String line){
+        if (PATTERN_DEBATE_ITEMS.matcher(line).matches()) {
+            return TokenType.ITEM;
+        } else if (PATTERN_DECISION_MARKER.matcher(line).matches()) {
+            return TokenType.DECISION;
+        } else if (PATTERN_DEBATE_MARKER.matcher(line).matches()) {
+            return TokenType.DISCUSSION;
+        }
+        return TokenType.TEXT;
+    }
+
+    private static void assertSameType(String line){
+        assertEquals("Line '" + line + "'", classifyWithRegex(line), LineClassifier.classify(line));
+    }
+
+    static String minutesExcerpt() throws IOException {
+        try (InputStream is = LineClassifierTest.class.getResourceAsStream("/lalouviere/minutes-excerpt.txt")) {
+            return IOUtils.toString(is, StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void testMinutesExcerpt() throws IOException {
+        for (String line : minutesExcerpt().split("\n")) {
+            assertSameType(line);
+        }
+    }
+
+    @Test
+    public void testEdgeCases(){
+        List<String> lines = Arrays.asList(
+                "", " ", "\t", "1.- Point", "  12.- Point", "1.-Point", "1. - Point", ".- Point", "1.- ",
+                "1.- Point\u2028suite", "Le Conseil,", " Le Conseil, décide", "Le Conseil", "Le Conseil,\u0085",
+                "M.Gobert : Bonjour", "M.Gobert", "M. : ", "M.", "M:", "Mme Staquet : Bonjour", "  M.Gobert   :",
+                "M.Gobert\n: suite", "M.Gobert\n :\n", "M.Gobert\r\n: suite", "M.Gobert\u2028: suite",
+                "M.Go:bert\nsuite", "M.Gobert : \u2029", "M.Gobert\n\t: ok", "\n1.- Point", "\r\nLe Conseil, oui");
+        lines.forEach(LineClassifierTest::assertSameType);
+    }
+
+    @Test
+    public void testRandomLines(){
+        String[] fragments = {"M", ".", "M.", ":", " ", "\t", "\n", "\r", "\u2028", "\u0085", "1", "42", ".- ",
+                "Le Conseil,", "Le", "x", "é"};
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            StringBuilder line = new StringBuilder();
+            int length = random.nextInt(8);
+            for (int j = 0; j < length; j++) {
+                line.append(fragments[random.nextInt(fragments.length)]);
+            }
+            assertSameType(line.toString());
+        }
+    }
+}
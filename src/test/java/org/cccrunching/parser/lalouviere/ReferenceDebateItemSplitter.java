@@ -0,0 +1,117 @@
+package org.cccrunching.parser.lalouviere;
+
+import org.cccrunching.data.MeetingItem;
+import org.cccrunching.parser.lalouviere.LaLouvMeetingParser.Token;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The line by line implementation of {@link LaLouvMeetingParser#splitDebateItems(String)} replaced by
+ * {@link DebateItemSplitter}, kept unchanged as the reference its output is compared to
+ */
+final class ReferenceDebateItemSplitter {
+
+    private enum ParserStates { TEXT, DEBATE, DECISION, TITLE};
+
+    private ReferenceDebateItemSplitter(){
+    }
+
+    static Map<String, MeetingItem> splitDebateItems(String str){
+        Map<String,MeetingItem> map = new LinkedHashMap<>();
+
+        try (BufferedReader reader = new BufferedReader(new StringReader(str))){
+            String line;
+            String currentTopic = "";
+            String currentDiscussion = null;
+            String currentDecision = null;
+            StringBuffer buffer = new StringBuffer();
+            ParserStates currentState = ParserStates.TITLE;
+            while ((line = reader.readLine()) != null){
+                Token.TokenType type = LineClassifier.classify(line);
+                if (buffer.length() > 0 || !line.isEmpty()) {
+                    switch (currentState) {
+                        case DECISION: {
+                            if (type == Token.TokenType.TEXT) {
+                                buffer.append(line + "\n");
+                            } else {
+                                currentDecision = buffer.toString();
+
+                                if (type == Token.TokenType.DECISION) {
+                                    currentState = ParserStates.DECISION;
+                                } else if (type == Token.TokenType.ITEM) {
+                                    currentState = ParserStates.TITLE;
+                                    map.put(currentTopic, new MeetingItem(currentTopic, currentDiscussion, currentDecision, currentDecision== null ? null :  currentDecision.contains("A l'unanimité,")));
+                                    currentDecision = null;
+                                    currentDiscussion = null;
+                                } else if (type == Token.TokenType.DISCUSSION) {
+                                    currentState = ParserStates.DEBATE;
+                                }
+                                buffer = new StringBuffer();
+                                buffer.append(line);
+                            }
+                            break;
+                        }
+                        case DEBATE: {
+                            if (type == Token.TokenType.TEXT || type == Token.TokenType.DISCUSSION) {
+                                buffer.append(line + "\n");
+                            } else {
+                                currentDiscussion = buffer.toString();
+
+                                if (type == Token.TokenType.DECISION) {
+                                    currentState = ParserStates.DECISION;
+                                } else if (type == Token.TokenType.ITEM) {
+                                    currentState = ParserStates.TITLE;
+                                    map.put(currentTopic, new MeetingItem(currentTopic, currentDiscussion, currentDecision, currentDecision== null ? null :  currentDecision.contains("A l'unanimité,")));
+                                    currentDecision = null;
+                                    currentDiscussion = null;
+                                }
+                                buffer = new StringBuffer();
+                                buffer.append(line);
+                            }
+                            break;
+                        }
+                        case TITLE: {
+                            if (type == Token.TokenType.TEXT || type == Token.TokenType.ITEM) {
+                                buffer.append(line + "\n");
+                            } else {
+                                currentTopic = buffer.toString();
+
+                                if (type == Token.TokenType.DECISION) {
+                                    currentState = ParserStates.DECISION;
+                                }  else if (type == Token.TokenType.DISCUSSION) {
+                                    currentState = ParserStates.DEBATE;
+                                }
+                                buffer = new StringBuffer();
+                                buffer.append(line);
+                            }
+                            break;
+                        }
+                    }
+
+                }
+            }
+            switch (currentState) {
+                case TITLE: {
+                    currentTopic = buffer.toString();
+                    break;
+                }
+                case DECISION: {
+                    currentDecision = buffer.toString();
+                    break;
+                }
+                case DEBATE: {
+                    currentDiscussion = buffer.toString();
+                    break;
+                }
+            }
+            map.put(currentTopic, new MeetingItem(currentTopic, currentDiscussion, currentDecision, currentDecision== null ? null :  currentDecision.contains("A l'unanimité,")));
+            return map;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
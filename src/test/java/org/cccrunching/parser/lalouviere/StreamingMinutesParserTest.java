@@ -0,0 +1,160 @@
+package org.cccrunching.parser.lalouviere;
+
+import org.cccrunching.data.Meeting;
+import org.cccrunching.data.MeetingItem;
+import org.cccrunching.parser.LineContentHandler;
+import org.cccrunching.parser.MeetingParser;
+import org.cccrunching.parser.MeetingParserRegistry;
+import org.cccrunching.parser.StreamingMeetingParser;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that parsing line by line gives the same meetings as parsing the whole text
+ */
+public class StreamingMinutesParserTest {
+
+    private static final String OPENING = "La séance est ouverte à 19 heures 30";
+
+    private final LaLouvMeetingParser parser = new LaLouvMeetingParser();
+
+    /**
+     * Feeds the text through a {@link LineContentHandler} in chunks of random sizes, like SAX events
+     */
+    private static Meeting stream(StreamingMeetingParser parser, String text, Random random){
+        StreamingMeetingParser.Session session = parser.open(null);
+        LineContentHandler handler = new LineContentHandler(session);
+        char[] chars = text.toCharArray();
+        int position = 0;
+        while (position < chars.length) {
+            int length = Math.min(chars.length - position, 1 + random.nextInt(64));
+            handler.characters(chars, position, length);
+            position += length;
+        }
+        handler.endDocument();
+        assertEquals(text.length(), handler.getCharacters());
+        return session.finish();
+    }
+
+    private void assertSameMeeting(String text){
+        assertSameMeeting(parser, text);
+    }
+
+    private static void assertSameMeeting(StreamingMeetingParser parser, String text){
+        Meeting expected;
+        try {
+            expected = parser.parse(text);
+        } catch (IllegalArgumentException e) {
+            try {
+                stream(parser, text, new Random(1));
+                fail("Streaming parsing accepted a text rejected by the parser: " + e.getMessage());
+            } catch (IllegalArgumentException expectedFailure) {
+                // rejected as well
+            }
+            return;
+        }
+        Meeting actual = stream(parser, text, new Random(text.length()));
+        assertEquals(expected.getTitle(), actual.getTitle());
+        assertEquals(expected.getMeetingDate(), actual.getMeetingDate());
+        assertEquals(expected.getItems(), actual.getItems());
+        for (int i = 0; i < expected.getItems().size(); i++) {
+            assertEquals(expected.getItems().get(i).isUnanimousVote(), actual.getItems().get(i).isUnanimousVote());
+        }
+        assertEquals(expected.getAttendees(), actual.getAttendees());
+    }
+
+    @Test
+    public void testMinutesExcerpt() throws IOException {
+        String excerpt = LineClassifierTest.minutesExcerpt();
+        assertSameMeeting(excerpt);
+        assertSameMeeting("Page 1\nsome preamble " + excerpt);
+        assertSameMeeting(excerpt.substring(0, excerpt.length() - 1));
+        assertSameMeeting(excerpt.replace("\n", "\r\n"));
+        assertSameMeeting(excerpt + "\n" + OPENING);
+    }
+
+    @Test
+    public void testRejectedTexts() throws IOException {
+        String excerpt = LineClassifierTest.minutesExcerpt();
+        int opening = excerpt.indexOf(OPENING);
+        List<String> texts = new ArrayList<>();
+        texts.add("");
+        texts.add("no minutes here");
+        texts.add(excerpt.substring(0, opening));
+        texts.add(excerpt.substring(0, opening + OPENING.length()));
+        texts.add(excerpt + OPENING + "\n");
+        texts.add(excerpt + OPENING + " and more");
+        texts.add(excerpt.replace(OPENING, OPENING + OPENING));
+        texts.add(excerpt.replace("Sont présents", "Présents"));
+        for (String text : texts) {
+            try {
+                parser.parse(text);
+                fail("Text should be rejected");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+            assertSameMeeting(text);
+        }
+        // openings at the very end only produce empty parts, which the split drops
+        assertSameMeeting(excerpt + OPENING);
+        assertSameMeeting(excerpt + OPENING + OPENING);
+    }
+
+    @Test
+    public void testRandomMinutes() throws IOException {
+        String excerpt = LineClassifierTest.minutesExcerpt();
+        int opening = excerpt.indexOf(OPENING) + OPENING.length();
+        String foreword = excerpt.substring(0, opening);
+        String[] fragments = {"1.- Point A", "2.- Point B", "Le Conseil,", "A l'unanimité,", "M.Gobert : oui",
+                "texte", " ", "", " ", OPENING};
+        String[] separators = {"\n", "\r\n", "\r", "\n\n"};
+        Random random = new Random(42);
+        for (int i = 0; i < 2_000; i++) {
+            StringBuilder text = new StringBuilder(foreword);
+            int length = random.nextInt(12);
+            for (int j = 0; j < length; j++) {
+                text.append(fragments[random.nextInt(fragments.length)]);
+                if (random.nextInt(5) > 0) {
+                    text.append(separators[random.nextInt(separators.length)]);
+                }
+            }
+            assertSameMeeting(text.toString());
+        }
+    }
+
+    @Test
+    public void testItemsAreReportedIncrementally() throws IOException {
+        List<MeetingItem> reported = new ArrayList<>();
+        StreamingMeetingParser.Session session = parser.open(reported::add);
+        String[] lines = LineClassifierTest.minutesExcerpt().split("\n");
+        int itemsBeforeLastLine = -1;
+        for (int i = 0; i < lines.length; i++) {
+            if (i == lines.length - 1) {
+                itemsBeforeLastLine = reported.size();
+            }
+            session.line(lines[i], true);
+        }
+        Meeting meeting = session.finish();
+        assertEquals(meeting.getItems().size() - 1, itemsBeforeLastLine);
+        assertEquals(meeting.getItems(), reported);
+    }
+
+    @Test
+    public void testRegistryReplaysDetectionWindow() throws IOException {
+        MeetingParserRegistry registry = new MeetingParserRegistry(Collections.<MeetingParser>singletonList(parser));
+        char[] padding = new char[MeetingParserRegistry.DETECTION_WINDOW - 100];
+        Arrays.fill(padding, 'x');
+        String excerpt = LineClassifierTest.minutesExcerpt();
+        assertSameMeeting(registry, excerpt);
+        assertSameMeeting(registry, new String(padding) + "\n" + excerpt);
+        assertSameMeeting(registry, new String(padding) + new String(padding) + "\n" + excerpt);
+    }
+}
@@ -0,0 +1,145 @@
+package org.cccrunching.search;
+
+import org.cccrunching.data.Meeting;
+import org.cccrunching.data.MeetingItem;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.admin.indices.create.CreateIndexRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.shard.ShardId;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ESIndexerTest {
+
+    /**
+     * Stand-in for the cluster, rejecting the first <code>rejections</code> requests it receives
+     */
+    private static class FakeTransport implements BiConsumer<BulkRequest, ActionListener<BulkResponse>> {
+
+        private final List<Integer> requestSizes = Collections.synchronizedList(new ArrayList<>());
+        private final Set<String> indexedIds = Collections.synchronizedSet(new HashSet<>());
+        private int rejections;
+
+        FakeTransport(int rejections){
+            this.rejections = rejections;
+        }
+
+        @Override
+        public synchronized void accept(BulkRequest request, ActionListener<BulkResponse> listener) {
+            requestSizes.add(request.numberOfActions());
+            boolean reject = rejections-- > 0;
+            BulkItemResponse[] items = new BulkItemResponse[request.numberOfActions()];
+            for (int i = 0; i < items.length; i++) {
+                DocWriteRequest<?> r = request.requests().get(i);
+                if (reject) {
+                    items[i] = new BulkItemResponse(i, DocWriteRequest.OpType.INDEX,
+                            new BulkItemResponse.Failure(r.index(), r.type(), r.id(), new EsRejectedExecutionException("queue full")));
+                } else {
+                    indexedIds.add(r.id());
+                    items[i] = new BulkItemResponse(i, DocWriteRequest.OpType.INDEX,
+                            new IndexResponse(new ShardId(r.index(), "_na_", 0), r.type(), r.id(), 1, 1, 1, true));
+                }
+            }
+            listener.onResponse(new BulkResponse(items, 1));
+        }
+    }
+
+    private static List<Meeting> meetings(int count){
+        List<Meeting> meetings = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            meetings.add(new Meeting("CONSEIL COMMUNAL "+i, LocalDate.of(2017,1,1).plusDays(i)));
+        }
+        return meetings;
+    }
+
+    @Test
+    public void testBatching(){
+        FakeTransport transport = new FakeTransport(0);
+        List<Meeting> meetings = meetings(25);
+        try (ESIndexer indexer = new ESIndexer(transport, new ESIndexer.BulkSettings().batchSize(10).concurrentRequests(0))) {
+            indexer.index(meetings);
+        }
+        assertEquals(Arrays.asList(10, 10, 5), transport.requestSizes);
+        assertEquals(25, transport.indexedIds.size());
+    }
+
+    @Test
+    public void testUnchangedMeetingsAreSkipped(){
+        FakeTransport transport = new FakeTransport(0);
+        List<Meeting> meetings = meetings(5);
+        Map<String, String> indexed = new HashMap<>();
+        // meetings 0 and 1 are indexed and unchanged, 2 was indexed with another content
+        indexed.put(meetings.get(0).getId(), meetings.get(0).getContentHash());
+        indexed.put(meetings.get(1).getId(), meetings.get(1).getContentHash());
+        indexed.put(meetings.get(2).getId(), meetings.get(2).add(new MeetingItem("1.- Budget")).getContentHash());
+        List<List<String>> lookups = new ArrayList<>();
+        ESIndexer.IndexedHashes hashes = ids -> {
+            lookups.add(ids);
+            return indexed;
+        };
+        try (ESIndexer indexer = new ESIndexer(transport, hashes, new ESIndexer.BulkSettings().batchSize(2).concurrentRequests(0))) {
+            indexer.index(meetings);
+        }
+        assertEquals(Arrays.asList(2, 2, 1), lookups.stream().map(List::size).collect(Collectors.toList()));
+        Set<String> expected = new HashSet<>();
+        for (Meeting meeting : meetings.subList(2, 5)) {
+            expected.add(meeting.getId());
+        }
+        assertEquals(expected, transport.indexedIds);
+    }
+
+    @Test
+    public void testRejectedBatchIsRetried(){
+        FakeTransport transport = new FakeTransport(2);
+        List<Meeting> meetings = meetings(5);
+        ESIndexer.BulkSettings settings = new ESIndexer.BulkSettings()
+                .batchSize(10)
+                .concurrentRequests(1)
+                .backoff(TimeValue.timeValueMillis(1), 3);
+        try (ESIndexer indexer = new ESIndexer(transport, settings)) {
+            indexer.index(meetings);
+        }
+        assertEquals(3, transport.requestSizes.size());
+        assertEquals(5, transport.indexedIds.size());
+    }
+
+    @Test
+    public void testFailuresAreReported(){
+        FakeTransport transport = new FakeTransport(10);
+        ESIndexer.BulkSettings settings = new ESIndexer.BulkSettings()
+                .backoff(TimeValue.timeValueMillis(1), 1);
+        try (ESIndexer indexer = new ESIndexer(transport, settings)) {
+            indexer.index(meetings(3));
+            fail("Indexing should have failed");
+        } catch (RuntimeException e){
+            assertTrue(e.getMessage(), e.getMessage().startsWith("3 meetings could not be indexed"));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testIndexDefinitionDeclaresHashes(){
+        CreateIndexRequest request = new CreateIndexRequest(ESIndexer.INDEX).source(ESIndexer.indexDefinition(), XContentType.JSON);
+        Map<String, Object> mapping = XContentHelper.convertToMap(XContentType.JSON.xContent(), request.mappings().get(ESIndexer.TYPE), false);
+        Map<String, Object> properties = (Map<String, Object>) ((Map<String, Object>) mapping.get(ESIndexer.TYPE)).get("properties");
+        assertEquals("keyword", ((Map<String, Object>) properties.get(ESIndexer.FIELD_CONTENT_HASH)).get("type"));
+        Map<String, Object> items = (Map<String, Object>) ((Map<String, Object>) properties.get("items")).get("properties");
+        assertEquals("keyword", ((Map<String, Object>) items.get(ESIndexer.FIELD_CONTENT_HASH)).get("type"));
+    }
+}
@@ -0,0 +1,105 @@
+package org.cccrunching.search;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.store.FSDirectory;
+import org.cccrunching.data.Meeting;
+import org.cccrunching.data.MeetingItem;
+import org.cccrunching.data.Person;
+import org.cccrunching.search.LuceneIndexer.DocumentType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LuceneIndexerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Meeting meeting(String title, LocalDate date, String itemTitle, String decision){
+        return new Meeting(title, date)
+                .add(new MeetingItem(itemTitle, null, decision, true))
+                .addAttendee(new Person("J.GOBERT"));
+    }
+
+    @Test
+    public void testIndexAndSearch(){
+        Path index = folder.getRoot().toPath();
+        Meeting november = meeting("CONSEIL COMMUNAL DU LUNDI 27 NOVEMBRE 2017", LocalDate.of(2017,11,27),
+                "1.- Travaux d'aménagement des sanitaires du Conservatoire", "de financer la dépense par l'emprunt");
+        Meeting march = meeting("CONSEIL COMMUNAL DU MERCREDI 8 MARS 2018", LocalDate.of(2018,3,8),
+                "1.- Marchés publics de fournitures", "d'approuver les cahiers spéciaux des charges");
+        try (LuceneIndexer indexer = new LuceneIndexer(index)) {
+            indexer.index(Arrays.asList(november, march));
+        }
+
+        try (LuceneSearcher searcher = new LuceneSearcher(index)) {
+            // elisions and plurals are handled by the french analyzer
+            List<LuceneSearcher.Hit> hits = searcher.search(DocumentType.ITEM, "emprunt", 10);
+            assertEquals(1, hits.size());
+            assertEquals(november.getId(), hits.get(0).getMeetingId());
+            assertEquals(LocalDate.of(2017,11,27), hits.get(0).getMeetingDate().get());
+
+            assertEquals(march.getId(), searcher.search(DocumentType.ITEM, "marché", 10).get(0).getMeetingId());
+            assertEquals(2, searcher.search(DocumentType.ATTENDEE, "gobert", 10).size());
+            assertEquals(1, searcher.search(DocumentType.ATTENDEE, "gobert", LocalDate.of(2018,1,1), null, 10).size());
+            assertTrue(searcher.search(DocumentType.MEETING, "sanitaires", 10).isEmpty());
+        }
+    }
+
+    @Test
+    public void testReindexReplacesDocuments(){
+        Path index = folder.getRoot().toPath();
+        Meeting meeting = meeting("CONSEIL COMMUNAL DU LUNDI 27 NOVEMBRE 2017", LocalDate.of(2017,11,27),
+                "1.- Budget", "d'approuver le budget");
+        try (LuceneIndexer indexer = new LuceneIndexer(index)) {
+            indexer.index(Collections.singletonList(meeting));
+            indexer.index(Collections.singletonList(meeting));
+        }
+        try (LuceneSearcher searcher = new LuceneSearcher(index)) {
+            assertEquals(1, searcher.search(DocumentType.ITEM, "budget", 10).size());
+            assertEquals(1, searcher.search(DocumentType.MEETING, "conseil", 10).size());
+        }
+    }
+
+    @Test
+    public void testUnchangedMeetingsAreSkipped() throws IOException {
+        Path index = folder.getRoot().toPath();
+        Meeting meeting = meeting("CONSEIL COMMUNAL DU LUNDI 27 NOVEMBRE 2017", LocalDate.of(2017,11,27),
+                "1.- Budget", "d'approuver le budget");
+        // parsed again from the same minutes, the meeting gets the same id and content hash
+        Meeting parsedAgain = meeting("CONSEIL COMMUNAL DU LUNDI 27 NOVEMBRE 2017", LocalDate.of(2017,11,27),
+                "1.- Budget", "d'approuver le budget");
+        assertEquals(meeting.getId(), parsedAgain.getId());
+        assertEquals(meeting.getContentHash(), parsedAgain.getContentHash());
+        Meeting amended = parsedAgain.add(new MeetingItem("2.- Travaux de voirie", null, "d'approuver les travaux", false));
+        assertEquals(meeting.getId(), amended.getId());
+        assertNotEquals(meeting.getContentHash(), amended.getContentHash());
+
+        try (LuceneIndexer indexer = new LuceneIndexer(index)) {
+            indexer.index(Collections.singletonList(meeting));
+            indexer.index(Collections.singletonList(parsedAgain));
+        }
+        try (DirectoryReader reader = DirectoryReader.open(FSDirectory.open(index))) {
+            // nothing was rewritten
+            assertEquals(0, reader.numDeletedDocs());
+        }
+        try (LuceneIndexer indexer = new LuceneIndexer(index)) {
+            indexer.index(Collections.singletonList(amended));
+        }
+        try (LuceneSearcher searcher = new LuceneSearcher(index)) {
+            assertEquals(1, searcher.search(DocumentType.ITEM, "voirie", 10).size());
+            assertEquals(1, searcher.search(DocumentType.MEETING, "conseil", 10).size());
+        }
+    }
+}